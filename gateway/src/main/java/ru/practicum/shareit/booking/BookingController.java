@@ -11,8 +11,11 @@ import ru.practicum.shareit.booking.dto.BookingState;
 
 import javax.validation.Valid;
 import javax.validation.ValidationException;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.util.List;
 
 @Controller
 @RequestMapping(path = "/bookings")
@@ -22,6 +25,8 @@ import javax.validation.constraints.PositiveOrZero;
 public class BookingController {
     private static final String FROM_ERROR_MESSAGE = "Индекс первого элемента не может быть отрицательным";
     private static final String SIZE_ERROR_MESSAGE = "Количество элементов для отображения должно быть положительным";
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final String BATCH_SIZE_ERROR_MESSAGE = "Пакет не может содержать больше 100 бронирований";
 
     private final BookingClient bookingClient;
 
@@ -31,11 +36,12 @@ public class BookingController {
                                               @PositiveOrZero(message = FROM_ERROR_MESSAGE)
                                               @RequestParam(name = "from", defaultValue = "0") Integer from,
                                               @Positive(message = SIZE_ERROR_MESSAGE)
-                                              @RequestParam(name = "size", defaultValue = "10") Integer size) {
+                                              @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                              @RequestParam(required = false) String cursor) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
         log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
-        return bookingClient.getBookings(userId, state, from, size);
+        return bookingClient.getBookings(userId, state, from, size, cursor);
     }
 
     @GetMapping("/owner")
@@ -44,12 +50,12 @@ public class BookingController {
                                                            @PositiveOrZero(message = FROM_ERROR_MESSAGE)
                                                            @RequestParam(defaultValue = "0") Integer from,
                                                            @Positive(message = SIZE_ERROR_MESSAGE)
-
-                                                           @RequestParam(defaultValue = "10") Integer size) {
+                                                           @RequestParam(defaultValue = "10") Integer size,
+                                                           @RequestParam(required = false) String cursor) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
         log.info("Get bookings by owner with userId={} for his items with state {}, from={}, size={}", userId, stateParam, from, size);
-        return bookingClient.getBookingsForOwnersItems(userId, state, from, size);
+        return bookingClient.getBookingsForOwnersItems(userId, state, from, size, cursor);
     }
 
     @PostMapping
@@ -63,6 +69,34 @@ public class BookingController {
         return bookingClient.bookItem(userId, requestDto);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<Object> bookItems(@RequestHeader("X-Sharer-User-Id") long userId,
+                                            @RequestBody
+                                            @NotEmpty(message = "Пакет бронирований не может быть пустым")
+                                            @Size(max = MAX_BATCH_SIZE, message = BATCH_SIZE_ERROR_MESSAGE)
+                                            List<@Valid BookItemRequestDto> requestDtos,
+                                            @RequestParam(defaultValue = "true") Boolean atomic) {
+        for (BookItemRequestDto requestDto : requestDtos) {
+            if (!requestDto.getEnd().isAfter(requestDto.getStart())) {
+                log.warn("Дата окончания бронирования должна быть после даты начала");
+                throw new ValidationException("Дата окончания бронирования должна быть после даты начала");
+            }
+        }
+        log.info("Creating {} bookings, userId={}, atomic={}", requestDtos.size(), userId, atomic);
+        return bookingClient.bookItems(userId, requestDtos, atomic);
+    }
+
+    @PatchMapping
+    public ResponseEntity<Object> patchAll(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                           @RequestParam
+                                           @NotEmpty(message = "Список бронирований не может быть пустым")
+                                           @Size(max = MAX_BATCH_SIZE, message = BATCH_SIZE_ERROR_MESSAGE)
+                                           List<Long> ids,
+                                           @RequestParam Boolean approved) {
+        log.info("Patching bookings {}, userId={}, approved={}", ids, userId, approved);
+        return bookingClient.patchBookings(userId, ids, approved);
+    }
+
     @PatchMapping("/{bookingId}")
     public ResponseEntity<Object> patch(@RequestHeader("X-Sharer-User-Id") Long userId,
                                         @PathVariable("bookingId") Long bookingId,
@@ -11,6 +11,8 @@ import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -27,25 +29,44 @@ public class ItemClient extends BaseClient {
         );
     }
 
-    public ResponseEntity<Object> getItems(long userId, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getItems(long userId, Integer from, Integer size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "from", from,
                 "size", size
-        );
-        return get("?from={from}&size={size}", userId, parameters);
+        ));
+        return get(withCursor("?from={from}&size={size}", parameters, cursor), userId, parameters);
     }
 
     public ResponseEntity<Object> findItemById(long userId, long itemId) {
         return get("/" + itemId, userId);
     }
 
-    public ResponseEntity<Object> findItemByText(long userId, String text, Integer from, Integer size) {
+    public ResponseEntity<Object> findAvailability(long userId, long itemId, LocalDate from, LocalDate to) {
         Map<String, Object> parameters = Map.of(
+                "from", from,
+                "to", to
+        );
+        return get("/" + itemId + "/availability?from={from}&to={to}", userId, parameters);
+    }
+
+    public ResponseEntity<Object> findItemByText(long userId, String text, Integer from, Integer size, Boolean ranked,
+                                                 String cursor) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "text", text,
                 "from", from,
+                "size", size,
+                "ranked", ranked
+        ));
+        return get(withCursor("/search?text={text}&from={from}&size={size}&ranked={ranked}", parameters, cursor),
+                userId, parameters);
+    }
+
+    public ResponseEntity<Object> suggestNames(long userId, String prefix, Integer size) {
+        Map<String, Object> parameters = Map.of(
+                "prefix", prefix,
                 "size", size
         );
-        return get("/search?text={text}&from={from}&size={size}", userId, parameters);
+        return get("/suggest?prefix={prefix}&size={size}", userId, parameters);
     }
 
     public ResponseEntity<Object> addItem(Long userId, ItemDto itemDto) {
@@ -2,6 +2,7 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -10,8 +11,11 @@ import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.validation.Validation;
 
 import javax.validation.Valid;
+import javax.validation.ValidationException;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 
 import static ru.practicum.shareit.validation.ValidationGroups.Create;
 import static ru.practicum.shareit.validation.ValidationGroups.Update;
@@ -24,6 +28,7 @@ import static ru.practicum.shareit.validation.ValidationGroups.Update;
 public class ItemController {
     private static final String FROM_ERROR_MESSAGE = "Индекс первого элемента не может быть отрицательным";
     private static final String SIZE_ERROR_MESSAGE = "Количество элементов для отображения должно быть положительным";
+    private static final int MAX_AVAILABILITY_DAYS = 366;
 
     private final ItemClient itemClient;
 
@@ -31,9 +36,10 @@ public class ItemController {
     public ResponseEntity<Object> findAllByUserId(
             @RequestHeader("X-Sharer-User-Id") long userId,
             @RequestParam(defaultValue = "0") @PositiveOrZero(message = FROM_ERROR_MESSAGE) Integer from,
-            @RequestParam(defaultValue = "10") @Positive(message = SIZE_ERROR_MESSAGE) Integer size) {
+            @RequestParam(defaultValue = "10") @Positive(message = SIZE_ERROR_MESSAGE) Integer size,
+            @RequestParam(required = false) String cursor) {
         log.info("Get items with  userId={}, from={}, size={}", userId, from, size);
-        return itemClient.getItems(userId, from, size);
+        return itemClient.getItems(userId, from, size, cursor);
     }
 
     @GetMapping("{itemId}")
@@ -42,13 +48,41 @@ public class ItemController {
         return itemClient.findItemById(userId, itemId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public ResponseEntity<Object> findAvailability(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @PathVariable Long itemId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (to.isBefore(from)) {
+            log.warn("Конец периода не может быть раньше начала");
+            throw new ValidationException("Конец периода не может быть раньше начала");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_AVAILABILITY_DAYS) {
+            log.warn("Период календаря длиннее {} дней", MAX_AVAILABILITY_DAYS);
+            throw new ValidationException(
+                    String.format("Период календаря не может быть длиннее %d дней", MAX_AVAILABILITY_DAYS));
+        }
+        return itemClient.findAvailability(userId, itemId, from, to);
+    }
+
     @GetMapping("/search")
     public ResponseEntity<Object> findByText(
             @RequestHeader("X-Sharer-User-Id") long userId,
             @RequestParam String text,
             @RequestParam(defaultValue = "0") @PositiveOrZero(message = FROM_ERROR_MESSAGE) Integer from,
+            @RequestParam(defaultValue = "10") @Positive(message = SIZE_ERROR_MESSAGE) Integer size,
+            @RequestParam(defaultValue = "false") Boolean ranked,
+            @RequestParam(required = false) String cursor) {
+        return itemClient.findItemByText(userId, text, from, size, ranked, cursor);
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<Object> suggestNames(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam String prefix,
             @RequestParam(defaultValue = "10") @Positive(message = SIZE_ERROR_MESSAGE) Integer size) {
-        return itemClient.findItemByText(userId, text, from, size);
+        return itemClient.suggestNames(userId, prefix, size);
     }
 
     @PostMapping
@@ -39,8 +39,9 @@ public class ItemRequestController {
     public ResponseEntity<Object> findAll(
             @RequestHeader("X-Sharer-User-Id") long userId,
             @RequestParam(defaultValue = "0") @PositiveOrZero(message = FROM_ERROR_MESSAGE) Integer from,
-            @RequestParam(defaultValue = "10") @Positive(message = SIZE_ERROR_MESSAGE) Integer size) {
-        return requestClient.findAllRequests(userId, from, size);
+            @RequestParam(defaultValue = "10") @Positive(message = SIZE_ERROR_MESSAGE) Integer size,
+            @RequestParam(required = false) String cursor) {
+        return requestClient.findAllRequests(userId, from, size, cursor);
     }
 
     @GetMapping("/{requestId}")
@@ -6,14 +6,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -156,4 +163,89 @@ class BookingControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.validationErrors.end", containsString(error), String.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldValidateBookItems() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        BookItemRequestDto valid = BookItemRequestDto.builder()
+                .itemId(1L)
+                .start(now.plusMinutes(1))
+                .end(now.plusMinutes(2)).build();
+
+        //fail by empty batch
+        mvc.perform(post(URL + "/batch")
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString("Пакет бронирований не может быть пустым")));
+
+        //fail by start time of one entry
+        BookItemRequestDto noStart = BookItemRequestDto.builder()
+                .itemId(2L)
+                .end(now.plusMinutes(2)).build();
+        mvc.perform(post(URL + "/batch")
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(List.of(valid, noStart))))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString("Дата начала бронирования не может быть пустой")));
+
+        //fail by end before start
+        BookItemRequestDto endBeforeStart = BookItemRequestDto.builder()
+                .itemId(2L)
+                .start(now.plusMinutes(3))
+                .end(now.plusMinutes(2)).build();
+        mvc.perform(post(URL + "/batch")
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(List.of(valid, endBeforeStart))))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error",
+                        containsString("Дата окончания бронирования должна быть после даты начала")));
+
+        //Regular
+        when(client.bookItems(eq(1L), any(), eq(false))).thenReturn(ResponseEntity.ok().build());
+        mvc.perform(post(URL + "/batch")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("atomic", "false")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(List.of(valid))))
+                .andDo(print())
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldValidatePatchAll() throws Exception {
+        //fail by empty ids
+        mvc.perform(patch(URL)
+                        .header("X-Sharer-User-Id", 1)
+                        .param("ids", "")
+                        .param("approved", "true"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString("Список бронирований не может быть пустым")));
+
+        //fail by too many ids
+        String[] ids = LongStream.rangeClosed(1, 101).mapToObj(String::valueOf).toArray(String[]::new);
+        mvc.perform(patch(URL)
+                        .header("X-Sharer-User-Id", 1)
+                        .param("ids", ids)
+                        .param("approved", "true"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString("Пакет не может содержать больше 100 бронирований")));
+
+        //Regular
+        when(client.patchBookings(1L, List.of(1L, 2L), false)).thenReturn(ResponseEntity.ok().build());
+        mvc.perform(patch(URL)
+                        .header("X-Sharer-User-Id", 1)
+                        .param("ids", "1,2")
+                        .param("approved", "false"))
+                .andDo(print())
+                .andExpect(status().isOk());
+    }
+}
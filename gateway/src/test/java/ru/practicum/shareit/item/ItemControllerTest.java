@@ -6,12 +6,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDate;
+
 import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -100,6 +105,40 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$.error", containsString(error)));
     }
 
+    @Test
+    void shouldValidateAvailability() throws Exception {
+        //fail end before start
+        String error = "Конец периода не может быть раньше начала";
+        mvc.perform(get(URL + "/1/availability")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("from", "2023-05-07")
+                        .param("to", "2023-05-01"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString(error)));
+
+        //fail too long period
+        error = "Период календаря не может быть длиннее 366 дней";
+        mvc.perform(get(URL + "/1/availability")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("from", "2023-05-01")
+                        .param("to", "2024-05-01"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString(error)));
+
+        //Regular
+        LocalDate from = LocalDate.of(2023, 5, 1);
+        LocalDate to = LocalDate.of(2024, 4, 30);
+        when(client.findAvailability(1L, 1L, from, to)).thenReturn(ResponseEntity.ok().build());
+        mvc.perform(get(URL + "/1/availability")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("from", "2023-05-01")
+                        .param("to", "2024-04-30"))
+                .andDo(print())
+                .andExpect(status().isOk());
+    }
+
     @Test
     void shouldValidateAddComment() throws Exception {
         //Fail By Empty Text
@@ -2,7 +2,9 @@ package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingInDto;
 import ru.practicum.shareit.booking.dto.BookingOutDto;
 import ru.practicum.shareit.booking.enums.State;
@@ -16,6 +18,13 @@ import java.util.List;
 public class BookingController {
     private final BookingService service;
 
+    @PatchMapping
+    public List<BookingOutDto> patchAll(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                        @RequestParam List<Long> ids,
+                                        @RequestParam boolean approved) {
+        return service.patchAll(userId, ids, approved);
+    }
+
     @GetMapping("{bookingId}")
     public BookingOutDto findById(@RequestHeader("X-Sharer-User-Id") Long userId,
                                   @PathVariable long bookingId) {
@@ -23,21 +32,30 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingOutDto> findByState(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                           @RequestParam String state,
-                                           @RequestParam int from,
-                                           @RequestParam int size) {
+    public ResponseEntity<List<BookingOutDto>> findByState(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                           @RequestParam String state,
+                                                           @RequestParam int from,
+                                                           @RequestParam int size,
+                                                           @RequestParam(required = false) String cursor) {
         State stateEnum = State.from(state);
-        return service.findByState(userId, stateEnum, from, size);
+        if (cursor != null) {
+            return service.findByStateAfter(userId, stateEnum, cursor, size).toResponse();
+        }
+        return ResponseEntity.ok(service.findByState(userId, stateEnum, from, size));
     }
 
     @GetMapping("/owner")
-    public List<BookingOutDto> findByOwnerItemsAndState(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                                        @RequestParam String state,
-                                                        @RequestParam int from,
-                                                        @RequestParam int size) {
+    public ResponseEntity<List<BookingOutDto>> findByOwnerItemsAndState(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam String state,
+            @RequestParam int from,
+            @RequestParam int size,
+            @RequestParam(required = false) String cursor) {
         State stateEnum = State.from(state);
-        return service.findByOwnerItemsAndState(userId, stateEnum, from, size);
+        if (cursor != null) {
+            return service.findByOwnerItemsAndStateAfter(userId, stateEnum, cursor, size).toResponse();
+        }
+        return ResponseEntity.ok(service.findByOwnerItemsAndState(userId, stateEnum, from, size));
     }
 
     @PostMapping
@@ -47,6 +65,18 @@ public class BookingController {
         return service.add(userId, bookingDto);
     }
 
+    /**
+     * 201, если созданы все бронирования пакета, иначе 200 с причинами отказа по каждому.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<BookingBatchResultDto>> addAll(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                              @RequestBody List<BookingInDto> bookingDtos,
+                                                              @RequestParam(defaultValue = "true") boolean atomic) {
+        List<BookingBatchResultDto> results = service.addAll(userId, bookingDtos, atomic);
+        boolean allCreated = results.stream().allMatch(result -> result.getError() == null);
+        return ResponseEntity.status(allCreated ? HttpStatus.CREATED : HttpStatus.OK).body(results);
+    }
+
     @PatchMapping("/{bookingId}")
     @ResponseStatus(HttpStatus.OK)
     public BookingOutDto patch(@RequestHeader("X-Sharer-User-Id") Long userId,
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.booking;
 
+import ru.practicum.shareit.booking.archive.ArchivedBooking;
 import ru.practicum.shareit.booking.dto.BookingForItemsOutDto;
 import ru.practicum.shareit.booking.dto.BookingInDto;
 import ru.practicum.shareit.booking.dto.BookingOutDto;
@@ -44,6 +45,17 @@ public class BookingMapper {
         return booking;
     }
 
+    public static Booking toBooking(ArchivedBooking archived) {
+        Booking booking = new Booking();
+        booking.setId(archived.getId());
+        booking.setStart(archived.getStart());
+        booking.setEnd(archived.getEnd());
+        booking.setItem(archived.getItem());
+        booking.setBooker(archived.getBooker());
+        booking.setStatus(archived.getStatus());
+        return booking;
+    }
+
     public static BookingForItemsOutDto toBookingForItemsOutDto(Booking booking) {
         LocalDateTime start = LocalDateTime.ofInstant(booking.getStart(), ZONE_ID);
         LocalDateTime end = LocalDateTime.ofInstant(booking.getEnd(), ZONE_ID);
@@ -0,0 +1,46 @@
+package ru.practicum.shareit.booking.archive;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Завершённое бронирование, перенесённое из bookings в архив. Архивные бронирования больше не меняются.
+ */
+@Entity
+@Immutable
+@Table(name = "bookings_archive")
+@Getter
+@Setter
+@ToString
+public class ArchivedBooking {
+    @Id
+    private Long id;
+
+    @Column(name = "start_date", nullable = false)
+    private Instant start;
+
+    @Column(name = "end_date", nullable = false)
+    private Instant end;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @JoinColumn(name = "item_id")
+    private Item item;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @JoinColumn(name = "booker_id")
+    private User booker;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status;
+}
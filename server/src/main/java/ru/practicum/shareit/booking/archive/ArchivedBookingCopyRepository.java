@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.archive;
+
+import java.util.Collection;
+
+public interface ArchivedBookingCopyRepository {
+
+    /**
+     * Копирует бронирования из bookings в bookings_archive одним insert ... select.
+     */
+    int copyFromBookings(Collection<Long> ids);
+}
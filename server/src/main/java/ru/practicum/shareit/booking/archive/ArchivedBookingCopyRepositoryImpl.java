@@ -0,0 +1,27 @@
+package ru.practicum.shareit.booking.archive;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+
+// end — ключевое слово HQL, поэтому вставка нативная. Не через @Query: для нативного запроса Spring Data
+// при старте выводит из него count-запрос, а из insert ... select вывести его не может.
+// Без пространства запроса Hibernate не знает, какую таблицу меняет нативный запрос, и очищает
+// весь кэш второго уровня, включая пользователей и вещи
+@RequiredArgsConstructor
+public class ArchivedBookingCopyRepositoryImpl implements ArchivedBookingCopyRepository {
+    private final EntityManager em;
+
+    @Override
+    public int copyFromBookings(Collection<Long> ids) {
+        return em.createNativeQuery("insert into bookings_archive (id, start_date, end_date, item_id, booker_id, " +
+                        "status) select id, start_date, end_date, item_id, booker_id, status from bookings " +
+                        "where id in (:ids)")
+                .setParameter("ids", ids)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("bookings_archive")
+                .executeUpdate();
+    }
+}
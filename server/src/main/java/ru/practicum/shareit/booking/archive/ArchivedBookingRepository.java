@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.archive;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.enums.Status;
+
+@Repository
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long>,
+        ArchivedBookingCopyRepository {
+
+    @Query("select case when count(a) > 0 then true else false end from ArchivedBooking a " +
+            "where a.booker.id = :userId and a.item.id = :itemId and a.status = :status")
+    boolean existsByBookerIdAndItemIdAndStatus(@Param("userId") long userId, @Param("itemId") long itemId,
+                                               @Param("status") Status status);
+}
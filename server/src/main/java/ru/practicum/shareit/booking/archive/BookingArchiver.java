@@ -0,0 +1,104 @@
+package ru.practicum.shareit.booking.archive;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.availability.BookingLocks;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Переносит давно завершённые бронирования из bookings в bookings_archive, чтобы таблица с проверкой
+ * пересечений и поиском текущих и будущих бронирований не росла вместе с историей.
+ * Включается свойством shareit.booking.archive.enabled.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.booking.archive.enabled", havingValue = "true")
+@Slf4j
+public class BookingArchiver {
+    private final BookingRepository bookingRepo;
+    private final ArchivedBookingRepository repository;
+    private final BookingLocks locks;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher publisher;
+    private final Duration retention;
+    private final int batchSize;
+    private final Counter archived;
+
+    public BookingArchiver(BookingRepository bookingRepo,
+                           ArchivedBookingRepository repository,
+                           BookingLocks locks,
+                           TransactionTemplate transactionTemplate,
+                           ApplicationEventPublisher publisher,
+                           MeterRegistry registry,
+                           @Value("${shareit.booking.archive.after-days:90}") int afterDays,
+                           @Value("${shareit.booking.archive.batch-size:500}") int batchSize) {
+        this.bookingRepo = bookingRepo;
+        this.repository = repository;
+        this.locks = locks;
+        this.transactionTemplate = transactionTemplate;
+        this.publisher = publisher;
+        this.retention = Duration.ofDays(afterDays);
+        this.batchSize = batchSize;
+        this.archived = Counter.builder("bookings.archived").register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.archive.interval-ms:3600000}")
+    public void archive() {
+        Instant before = Instant.now().minus(retention);
+        int total = 0;
+        int batch;
+        do {
+            batch = Objects.requireNonNull(transactionTemplate.execute(status -> archiveBatch(before)));
+            total += batch;
+        } while (batch == batchSize);
+        if (total > 0) {
+            log.info("В архив перенесено {} бронирований, завершённых до {}", total, before);
+        }
+    }
+
+    private int archiveBatch(Instant before) {
+        List<Booking> bookings = bookingRepo.findArchivable(Status.WAITING, before, PageRequest.of(0, batchSize));
+        if (bookings.isEmpty()) {
+            return 0;
+        }
+        // Даты бронирований вещи пересчитываются под той же блокировкой. До неё бронирование могло стать
+        // последним для вещи, и тогда удаление из bookings удалило бы и строку дат
+        locks.lockItems(bookings.stream().map(booking -> booking.getItem().getId()).collect(Collectors.toSet()));
+        List<Long> ids = bookingRepo.findUnreferencedIds(
+                bookings.stream().map(Booking::getId).collect(Collectors.toList()));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int copied = repository.copyFromBookings(ids);
+        int deleted = bookingRepo.deleteByIds(ids);
+        if (copied != deleted) {
+            throw new IllegalStateException(String.format(
+                    "В архив скопировано %d бронирований, а удалено %d", copied, deleted));
+        }
+        // Деревья занятости и даты бронирований вещей не должны ссылаться на перенесённые бронирования
+        Set<Long> moved = new HashSet<>(ids);
+        bookings.stream()
+                .filter(booking -> moved.contains(booking.getId()))
+                .forEach(booking -> publisher.publishEvent(BookingChangedEvent.archived(booking)));
+        archived.increment(copied);
+        return copied;
+    }
+}
@@ -0,0 +1,201 @@
+package ru.practicum.shareit.booking.availability;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.datasource.PrimaryReads;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Подтверждённые бронирования каждой вещи в дереве интервалов для проверки занятости без запроса к базе.
+ * Дерево вещи загружается при первой проверке и дальше обновляется по событиям после коммита.
+ * Пока дерево загружает другой поток, проверка выполняется запросом к базе.
+ * По тому же дереву строится календарь занятых дней вещи.
+ * В памяти остаются деревья не больше shareit.booking.availability.size вещей, давно не проверявшиеся вытесняются
+ * и при следующей проверке загружаются заново.
+ */
+@Component
+@Slf4j
+public class BookingAvailability {
+    private static final String NAME = "bookings.availability";
+
+    private final BookingRepository repository;
+    private final PrimaryReads primaryReads;
+    private final int maxSize;
+    private final Map<Long, ItemIntervals> items;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public BookingAvailability(BookingRepository repository, PrimaryReads primaryReads, MeterRegistry registry,
+                               @Value("${shareit.booking.availability.size:10000}") int maxSize) {
+        this.repository = repository;
+        this.primaryReads = primaryReads;
+        this.maxSize = maxSize;
+        this.items = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ItemIntervals> eldest) {
+                if (size() > BookingAvailability.this.maxSize) {
+                    BookingAvailability.this.evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.hits = Counter.builder("cache.gets").tag("cache", NAME).tag("result", "hit").register(registry);
+        this.misses = Counter.builder("cache.gets").tag("cache", NAME).tag("result", "miss").register(registry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", NAME).register(registry);
+        Gauge.builder("cache.size", this, BookingAvailability::itemCount).tag("cache", NAME).register(registry);
+    }
+
+    public int itemCount() {
+        synchronized (items) {
+            return items.size();
+        }
+    }
+
+    public boolean isFree(long itemId, Instant start, Instant end) {
+        return query(itemId, tree -> !tree.overlaps(start, end),
+                () -> repository.findBookingsAtSameTime(itemId, Status.APPROVED, start, end).isEmpty());
+    }
+
+    /**
+     * Дни с from по to включительно, занятые подтверждёнными бронированиями хотя бы частично:
+     * бит i соответствует дню from + i.
+     */
+    public BitSet bookedDays(long itemId, LocalDate from, LocalDate to, ZoneId zone) {
+        Instant start = from.atStartOfDay(zone).toInstant();
+        Instant end = to.plusDays(1).atStartOfDay(zone).toInstant().minusNanos(1);
+        int days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        BitSet booked = new BitSet(days);
+        BiConsumer<Instant, Instant> mark = (bookingStart, bookingEnd) -> {
+            long first = ChronoUnit.DAYS.between(from, LocalDate.ofInstant(bookingStart, zone));
+            long last = ChronoUnit.DAYS.between(from, LocalDate.ofInstant(bookingEnd, zone));
+            booked.set((int) Math.max(first, 0), (int) Math.min(last, days - 1) + 1);
+        };
+        return query(itemId, tree -> {
+            tree.forEachOverlapping(start, end, mark);
+            return booked;
+        }, () -> {
+            repository.findBookingsAtSameTime(itemId, Status.APPROVED, start, end)
+                    .forEach(booking -> mark.accept(booking.getStart(), booking.getEnd()));
+            return booked;
+        });
+    }
+
+    private <T> T query(long itemId, Function<IntervalTree, T> fromTree, Supplier<T> fromDatabase) {
+        ItemIntervals intervals;
+        synchronized (items) {
+            intervals = items.computeIfAbsent(itemId, id -> new ItemIntervals());
+        }
+        synchronized (intervals) {
+            if (intervals.tree != null) {
+                hits.increment();
+                return fromTree.apply(intervals.tree);
+            }
+            misses.increment();
+            if (intervals.loading) {
+                return fromDatabase.get();
+            }
+            intervals.loading = true;
+        }
+        IntervalTree tree = new IntervalTree();
+        try {
+            // Дерево живёт дольше запроса, поэтому читается с основной базы, а не с отстающей реплики
+            for (Booking booking : primaryReads.read(() -> repository.findByItemIdAndStatus(itemId,
+                    Status.APPROVED))) {
+                tree.put(booking.getId(), booking.getStart(), booking.getEnd());
+            }
+        } catch (RuntimeException e) {
+            synchronized (intervals) {
+                intervals.loading = false;
+                intervals.pending.clear();
+            }
+            throw e;
+        }
+        synchronized (intervals) {
+            // Изменения, закоммиченные во время загрузки, могли не попасть в прочитанные данные
+            intervals.pending.forEach(event -> apply(tree, event));
+            intervals.pending.clear();
+            intervals.tree = tree;
+            intervals.loading = false;
+            log.debug("Загружено {} подтверждённых бронирований вещи с id {}", tree.size(), itemId);
+            return fromTree.apply(tree);
+        }
+    }
+
+    // До снятия блокировки вещи в BookingLocks
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onBookingChanged(BookingChangedEvent event) {
+        ItemIntervals intervals;
+        synchronized (items) {
+            intervals = items.get(event.getItemId());
+        }
+        if (intervals == null) {
+            return;
+        }
+        synchronized (intervals) {
+            if (intervals.tree != null) {
+                apply(intervals.tree, event);
+            } else if (intervals.loading) {
+                intervals.pending.add(event);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        if (event.isDeleted()) {
+            synchronized (items) {
+                items.remove(event.getItemId());
+            }
+        }
+    }
+
+    // Бронирования удалённого пользователя неизвестны, поэтому деревья загрузятся заново
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        synchronized (items) {
+            items.clear();
+        }
+    }
+
+    private static void apply(IntervalTree tree, BookingChangedEvent event) {
+        if (event.getStatus() == Status.APPROVED && !event.isDeleted()) {
+            tree.put(event.getBookingId(), event.getStart(), event.getEnd());
+        } else {
+            tree.remove(event.getBookingId());
+        }
+    }
+
+    private static final class ItemIntervals {
+        private final List<BookingChangedEvent> pending = new ArrayList<>();
+        private IntervalTree tree;
+        private boolean loading;
+    }
+}
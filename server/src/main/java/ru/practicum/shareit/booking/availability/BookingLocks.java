@@ -0,0 +1,76 @@
+package ru.practicum.shareit.booking.availability;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Блокировки бронирования вещей внутри процесса. Вещи распределены по фиксированному набору блокировок,
+ * поэтому бронирования разных вещей почти никогда не ждут друг друга.
+ * Блокировка держится до завершения транзакции: следующая проверка занятости увидит уже закоммиченные данные.
+ */
+@Component
+public class BookingLocks {
+    private final Lock[] stripes;
+
+    public BookingLocks(@Value("${shareit.booking.lock-stripes:256}") int stripes) {
+        this.stripes = new Lock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Блокирует вещь до конца текущей транзакции.
+     */
+    public void lockItem(long itemId) {
+        checkTransaction();
+        lock(stripeOf(itemId));
+    }
+
+    /**
+     * Блокирует несколько вещей до конца текущей транзакции. Блокировки берутся по возрастанию номера,
+     * поэтому две транзакции с пересекающимися наборами вещей не ждут друг друга по кругу.
+     */
+    public void lockItems(Collection<Long> itemIds) {
+        checkTransaction();
+        SortedSet<Integer> stripeIds = new TreeSet<>();
+        itemIds.forEach(itemId -> stripeIds.add(stripeOf(itemId)));
+        stripeIds.forEach(this::lock);
+    }
+
+    private void checkTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Блокировка вещи возможна только внутри транзакции");
+        }
+    }
+
+    private int stripeOf(long itemId) {
+        return Math.floorMod(Long.hashCode(itemId), stripes.length);
+    }
+
+    private void lock(int stripe) {
+        Lock lock = stripes[stripe];
+        lock.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // После обновления дерева занятости, которое тоже выполняется по завершении транзакции
+            @Override
+            public int getOrder() {
+                return Ordered.LOWEST_PRECEDENCE;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+}
@@ -0,0 +1,199 @@
+package ru.practicum.shareit.booking.availability;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * АВЛ-дерево интервалов бронирований, упорядоченное по началу. Каждый узел хранит наибольший конец
+ * в своём поддереве, поэтому поиск пересечения спускается по одной ветви.
+ * Не потокобезопасно.
+ */
+class IntervalTree {
+    private final Map<Long, Instant> starts = new HashMap<>();
+    private Node root;
+
+    /**
+     * Добавляет интервал бронирования, заменяя прежний интервал с тем же id.
+     */
+    void put(long bookingId, Instant start, Instant end) {
+        remove(bookingId);
+        root = insert(root, new Node(bookingId, start, end));
+        starts.put(bookingId, start);
+    }
+
+    void remove(long bookingId) {
+        Instant start = starts.remove(bookingId);
+        if (start != null) {
+            root = delete(root, start, bookingId);
+        }
+    }
+
+    int size() {
+        return starts.size();
+    }
+
+    /**
+     * Есть ли интервал, пересекающийся с [start, end] с учётом границ.
+     */
+    boolean overlaps(Instant start, Instant end) {
+        Node node = root;
+        while (node != null) {
+            if (!node.start.isAfter(end) && !node.end.isBefore(start)) {
+                return true;
+            }
+            // Если в левом поддереве есть конец не раньше start, но пересечения там нет,
+            // то все начала справа позже end
+            if (node.left != null && !node.left.maxEnd.isBefore(start)) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Передаёт в action начало и конец каждого интервала, пересекающегося с [start, end], по возрастанию начала.
+     */
+    void forEachOverlapping(Instant start, Instant end, BiConsumer<Instant, Instant> action) {
+        forEachOverlapping(root, start, end, action);
+    }
+
+    private static void forEachOverlapping(Node node, Instant start, Instant end,
+                                           BiConsumer<Instant, Instant> action) {
+        if (node == null || node.maxEnd.isBefore(start)) {
+            return;
+        }
+        forEachOverlapping(node.left, start, end, action);
+        if (node.start.isAfter(end)) {
+            return;
+        }
+        if (!node.end.isBefore(start)) {
+            action.accept(node.start, node.end);
+        }
+        forEachOverlapping(node.right, start, end, action);
+    }
+
+    private static int compare(Instant start, long id, Node node) {
+        int result = start.compareTo(node.start);
+        return result != 0 ? result : Long.compare(id, node.id);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.id, node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return balance(node);
+    }
+
+    private static Node delete(Node node, Instant start, long id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node min = node.right;
+            while (min.left != null) {
+                min = min.left;
+            }
+            min.right = deleteMin(node.right);
+            min.left = node.left;
+            node = min;
+        }
+        return balance(node);
+    }
+
+    private static Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        Instant maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static final class Node {
+        private final long id;
+        private final Instant start;
+        private final Instant end;
+        private Instant maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        private Node(long id, Instant start, Instant end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ru.practicum.shareit.booking.dates;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
+import ru.practicum.shareit.booking.Booking;
+
+import javax.persistence.*;
+
+/**
+ * Последнее начавшееся и ближайшее будущее бронирование вещи. Отсутствие строки означает,
+ * что даты ещё не рассчитаны, а не что бронирований нет: строка удаляется вместе с любым из бронирований.
+ */
+@Entity
+@Table(name = "item_booking_dates")
+@Getter
+@Setter
+@ToString
+public class ItemBookingDates implements Persistable<Long> {
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @JoinColumn(name = "last_booking_id")
+    private Booking lastBooking;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @JoinColumn(name = "next_booking_id")
+    private Booking nextBooking;
+
+    // Строка, которой точно нет в базе, сохраняется через persist без лишнего SELECT из merge
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean created;
+
+    public static ItemBookingDates created(long itemId) {
+        ItemBookingDates dates = new ItemBookingDates();
+        dates.setItemId(itemId);
+        dates.created = true;
+        return dates;
+    }
+
+    @Override
+    public Long getId() {
+        return itemId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return created;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markPersisted() {
+        created = false;
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.dates;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ItemBookingDatesRepository extends JpaRepository<ItemBookingDates, Long> {
+
+    @Query("select d from ItemBookingDates d left join fetch d.lastBooking left join fetch d.nextBooking " +
+            "where d.itemId in :itemIds")
+    List<ItemBookingDates> findByItemIdIn(@Param("itemIds") Collection<Long> itemIds);
+
+    @Query("select d.itemId from ItemBookingDates d where d.nextBooking.start <= :now")
+    List<Long> findItemIdsWithStartedNext(@Param("now") Instant now);
+}
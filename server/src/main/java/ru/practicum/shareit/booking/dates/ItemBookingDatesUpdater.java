@@ -0,0 +1,108 @@
+package ru.practicum.shareit.booking.dates;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.availability.BookingLocks;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Пересчитывает даты бронирований вещи в той же транзакции, что и изменение бронирования,
+ * а по расписанию переносит начавшиеся бронирования из ближайших в последние.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ItemBookingDatesUpdater {
+    private final ItemBookingDatesRepository repository;
+    private final BookingRepository bookingRepo;
+    private final BookingLocks locks;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Запоминает вещь и пересчитывает все вещи транзакции одним запросом перед её фиксацией.
+     * События вне транзакции, как и раньше, пропускаются.
+     */
+    @EventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        PendingRefresh pending = (PendingRefresh) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingRefresh();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.itemIds.add(event.getItemId());
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.dates.refresh-ms:60000}")
+    public void rollOver() {
+        List<Long> itemIds = repository.findItemIdsWithStartedNext(Instant.now());
+        // Каждая вещь в своей транзакции, чтобы не держать блокировки нескольких вещей сразу
+        itemIds.forEach(itemId -> transactionTemplate.executeWithoutResult(status -> refresh(List.of(itemId))));
+        if (!itemIds.isEmpty()) {
+            log.debug("Обновлены даты бронирований {} вещей", itemIds.size());
+        }
+    }
+
+    private void refresh(Collection<Long> itemIds) {
+        locks.lockItems(itemIds);
+        Instant now = Instant.now();
+        Map<Long, ItemBookingDates> dates = new HashMap<>();
+        for (ItemBookingDates existing : repository.findAllById(itemIds)) {
+            existing.setLastBooking(null);
+            existing.setNextBooking(null);
+            dates.put(existing.getItemId(), existing);
+        }
+        List<ItemBookingDates> created = new ArrayList<>();
+        for (Long itemId : itemIds) {
+            if (!dates.containsKey(itemId)) {
+                ItemBookingDates missing = ItemBookingDates.created(itemId);
+                dates.put(itemId, missing);
+                created.add(missing);
+            }
+        }
+        for (Booking booking : bookingRepo.findLastAndNextByItemIdIn(itemIds, now)) {
+            ItemBookingDates itemDates = dates.get(booking.getItem().getId());
+            if (booking.getStart().isAfter(now)) {
+                itemDates.setNextBooking(booking);
+            } else {
+                itemDates.setLastBooking(booking);
+            }
+        }
+        // Загруженные строки обновятся пакетом при сбросе контекста, новые вставляются без merge
+        repository.saveAll(created);
+    }
+
+    private final class PendingRefresh implements TransactionSynchronization {
+        private final Set<Long> itemIds = new TreeSet<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            refresh(itemIds);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ItemBookingDatesUpdater.this);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking.enums;
+
+/**
+ * С чьей стороны просматриваются бронирования: арендатора или владельца вещи.
+ */
+public enum BookingRole {
+    BOOKER,
+    OWNER
+}
@@ -0,0 +1,36 @@
+package ru.practicum.shareit.booking.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.enums.Status;
+
+import java.time.Instant;
+
+/**
+ * Создание бронирования, смена его статуса или перенос в архив.
+ */
+@Value
+@AllArgsConstructor
+public class BookingChangedEvent {
+    long bookingId;
+    long itemId;
+    Instant start;
+    Instant end;
+    Status status;
+    boolean deleted;
+
+    public BookingChangedEvent(long bookingId, long itemId, Instant start, Instant end, Status status) {
+        this(bookingId, itemId, start, end, status, false);
+    }
+
+    public static BookingChangedEvent of(Booking booking, long itemId) {
+        return new BookingChangedEvent(booking.getId(), itemId, booking.getStart(), booking.getEnd(),
+                booking.getStatus());
+    }
+
+    public static BookingChangedEvent archived(Booking booking) {
+        return new BookingChangedEvent(booking.getId(), booking.getItem().getId(), booking.getStart(),
+                booking.getEnd(), booking.getStatus(), true);
+    }
+}
@@ -0,0 +1,98 @@
+package ru.practicum.shareit.booking.expiry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.availability.BookingLocks;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Отклоняет ожидающие бронирования, время начала которых уже прошло, а владелец так и не ответил.
+ * Бронирования обрабатываются пачками, каждая в своей транзакции, чтобы не держать долго блокировки
+ * строк и вещей.
+ */
+@Component
+@Slf4j
+public class WaitingBookingExpirer {
+    private final BookingRepository repository;
+    private final BookingLocks locks;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher publisher;
+    private final int batchSize;
+    private final Counter expired;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public WaitingBookingExpirer(BookingRepository repository,
+                                 BookingLocks locks,
+                                 TransactionTemplate transactionTemplate,
+                                 ApplicationEventPublisher publisher,
+                                 MeterRegistry registry,
+                                 @Value("${shareit.booking.expiry.batch-size:100}") int batchSize) {
+        this.repository = repository;
+        this.locks = locks;
+        this.transactionTemplate = transactionTemplate;
+        this.publisher = publisher;
+        this.batchSize = batchSize;
+        this.expired = Counter.builder("bookings.expired").register(registry);
+        // Насколько старше момента начала самое давнее ещё не отклонённое бронирование на последнем запуске
+        Gauge.builder("bookings.expiry.lag", lagSeconds, AtomicLong::get).baseUnit("seconds").register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.expiry.interval-ms:60000}")
+    public void expire() {
+        Instant now = Instant.now();
+        List<Booking> batch = expireBatchInTransaction(now);
+        lagSeconds.set(batch.isEmpty() ? 0 : Duration.between(batch.get(0).getStart(), now).toSeconds());
+        int total = batch.size();
+        while (batch.size() == batchSize) {
+            batch = expireBatchInTransaction(now);
+            total += batch.size();
+        }
+        if (total > 0) {
+            log.info("Отклонено {} ожидающих бронирований с прошедшим началом", total);
+        }
+    }
+
+    private List<Booking> expireBatchInTransaction(Instant now) {
+        return Objects.requireNonNull(transactionTemplate.execute(status -> expireBatch(now)));
+    }
+
+    private List<Booking> expireBatch(Instant now) {
+        List<Booking> candidates = repository.findByStatusAndStartBefore(Status.WAITING, now,
+                PageRequest.of(0, batchSize));
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        // Подтверждение тоже идёт под блокировкой вещи, поэтому после неё статус может смениться только
+        // на отклонённый. Бронирования, подтверждённые до блокировки, отбрасываются повторным чтением
+        locks.lockItems(candidates.stream().map(booking -> booking.getItem().getId()).collect(Collectors.toSet()));
+        List<Long> ids = candidates.stream().map(Booking::getId).collect(Collectors.toList());
+        List<Booking> waiting = repository.findByIdInAndStatus(ids, Status.WAITING);
+        if (!waiting.isEmpty()) {
+            int updated = repository.updateStatus(
+                    waiting.stream().map(Booking::getId).collect(Collectors.toList()), Status.WAITING,
+                    Status.REJECTED);
+            expired.increment(updated);
+            waiting.forEach(booking -> publisher.publishEvent(new BookingChangedEvent(booking.getId(),
+                    booking.getItem().getId(), booking.getStart(), booking.getEnd(), Status.REJECTED)));
+        }
+        return candidates;
+    }
+}
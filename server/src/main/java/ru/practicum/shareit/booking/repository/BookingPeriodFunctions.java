@@ -0,0 +1,56 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.boot.spi.MetadataBuilderImplementor;
+import org.hibernate.dialect.function.SQLFunction;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.engine.jdbc.connections.spi.JdbcConnectionAccess;
+import org.hibernate.engine.jdbc.spi.JdbcServices;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.boot.jdbc.DatabaseDriver;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Objects;
+
+/**
+ * Функция periods_overlap(start1, end1, start2, end2): пересекаются ли закрытые периоды бронирований.
+ * В PostgreSQL это оператор && над tsrange, который использует GiST-индексы по периоду бронирования,
+ * в остальных базах (H2 в тестах) — два сравнения. Диалект в тестах тоже PostgreSQL, поэтому база
+ * определяется по соединению.
+ */
+@Slf4j
+public class BookingPeriodFunctions implements MetadataBuilderContributor {
+    public static final String OVERLAPS = "periods_overlap";
+
+    static final SQLFunction RANGES = new SQLFunctionTemplate(StandardBasicTypes.BOOLEAN,
+            "(tsrange(?1, ?2, '[]') && tsrange(?3, ?4, '[]'))");
+    // Параметры запроса привязываются в порядке аргументов функции, поэтому шаблон не меняет их порядок
+    static final SQLFunction COMPARISONS = new SQLFunctionTemplate(StandardBasicTypes.BOOLEAN,
+            "(?2 >= ?3 and ?1 <= ?4)");
+
+    @Override
+    public void contribute(MetadataBuilder builder) {
+        builder.applySqlFunction(OVERLAPS, isPostgres(builder) ? RANGES : COMPARISONS);
+    }
+
+    private static boolean isPostgres(MetadataBuilder builder) {
+        JdbcServices jdbcServices = ((MetadataBuilderImplementor) builder).getBootstrapContext().getServiceRegistry()
+                .getService(JdbcServices.class);
+        JdbcConnectionAccess access = Objects.requireNonNull(jdbcServices).getBootstrapJdbcConnectionAccess();
+        try {
+            Connection connection = access.obtainConnection();
+            try {
+                String product = connection.getMetaData().getDatabaseProductName();
+                return DatabaseDriver.fromProductName(product) == DatabaseDriver.POSTGRESQL;
+            } finally {
+                access.releaseConnection(connection);
+            }
+        } catch (SQLException e) {
+            log.warn("Не удалось определить базу данных, периоды бронирований сравниваются без tsrange", e);
+            return false;
+        }
+    }
+}
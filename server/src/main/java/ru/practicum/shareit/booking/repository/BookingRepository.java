@@ -1,8 +1,8 @@
 package ru.practicum.shareit.booking.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
@@ -12,45 +12,88 @@ import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.enums.Status;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long>, CrudRepository<Booking, Long>,
-        PagingAndSortingRepository<Booking, Long> {
-
-    List<Booking> findByItemIdAndStatusOrStatusOrderByStartAsc(Long id, Status status, Status status1);
-
-    List<Booking> findByItemIdInAndStatusOrStatusOrderByStartAsc(List<Long> itemIds, Status status, Status status1);
-
-    @Query("select b from Booking b where (b.item.id = :itemId) and " +
-            "(b.status = :status) and " +
-            "(b.start between :start and :end " +
-            "OR b.end between :start and :end " +
-            "OR b.start <= :start AND b.end >= :end)")
+        PagingAndSortingRepository<Booking, Long>, BookingSpecificationRepository {
+    /**
+     * Для каждой вещи последнее начавшееся и ближайшее будущее бронирование среди подтверждённых и ожидающих,
+     * то есть не больше двух строк на вещь вместо всей истории бронирований.
+     */
+    @Query(value = "select id, start_date, end_date, item_id, booker_id, status from (" +
+            "select b.*, row_number() over (partition by b.item_id order by b.start_date desc, b.id desc) as rn " +
+            "from bookings b where b.item_id in (:itemIds) and b.status in ('APPROVED', 'WAITING') " +
+            "and b.start_date <= :now) as last_bookings where rn = 1 " +
+            "union all " +
+            "select id, start_date, end_date, item_id, booker_id, status from (" +
+            "select b.*, row_number() over (partition by b.item_id order by b.start_date, b.id) as rn " +
+            "from bookings b where b.item_id in (:itemIds) and b.status in ('APPROVED', 'WAITING') " +
+            "and b.start_date > :now) as next_bookings where rn = 1",
+            nativeQuery = true)
+    List<Booking> findLastAndNextByItemIdIn(@Param("itemIds") Collection<Long> itemIds, @Param("now") Instant now);
+
+    @Query("select b from Booking b where b.item.id = :itemId and b.status = :status")
+    List<Booking> findByItemIdAndStatus(@Param("itemId") long itemId, @Param("status") Status status);
+
+    @Query("select b from Booking b where b.item.id = :itemId and b.status = :status " +
+            "and periods_overlap(b.start, b.end, :start, :end) = true")
     List<Booking> findBookingsAtSameTime(@Param(value = "itemId") long itemId,
                                          @Param(value = "status") Status status,
                                          @Param(value = "start") Instant start,
                                          @Param(value = "end") Instant end);
 
-    List<Booking> findByBookerIdAndItemIdAndStatusAndStartIsBefore(Long userId, long itemId, Status status, Instant now);
-
-    Page<Booking> findByItemOwnerId(Long userId, Pageable page);
-
-    Page<Booking> findByItemOwnerIdAndEndIsBefore(Long userId, Instant now, Pageable page);
-
-    Page<Booking> findByItemOwnerIdAndStartIsAfter(Long userId, Instant now, Pageable page);
-
-    Page<Booking> findByItemOwnerIdAndStartIsBeforeAndEndIsAfter(Long userId, Instant now, Instant now1, Pageable page);
-
-    Page<Booking> findByItemOwnerIdAndStatus(Long userId, Status status, Pageable page);
-
-    Page<Booking> findByBookerId(Long userId, Pageable page);
-
-    Page<Booking> findByBookerIdAndEndIsBefore(Long userId, Instant now, Pageable page);
-
-    Page<Booking> findByBookerIdAndStartIsAfter(Long userId, Instant now, Pageable page);
-
-    Page<Booking> findByBookerIdAndStartIsBeforeAndEndIsAfter(Long userId, Instant now, Instant now1, Pageable page);
-
-    Page<Booking> findByBookerIdAndStatus(Long userId, Status status, Pageable page);
-}
\ No newline at end of file
+    @Query("select b from Booking b where b.item.id in :itemIds and b.status = :status " +
+            "and periods_overlap(b.start, b.end, :start, :end) = true")
+    List<Booking> findByItemIdInAndStatusOverlapping(@Param("itemIds") Collection<Long> itemIds,
+                                                     @Param("status") Status status,
+                                                     @Param("start") Instant start,
+                                                     @Param("end") Instant end);
+
+    @Query("select b from Booking b where b.booker.id = :userId and b.item.id = :itemId and b.status = :status " +
+            "and b.start < :now")
+    List<Booking> findByBookerIdAndItemIdAndStatusAndStartIsBefore(@Param("userId") Long userId,
+                                                                   @Param("itemId") long itemId,
+                                                                   @Param("status") Status status,
+                                                                   @Param("now") Instant now);
+
+    @Query("select b from Booking b where b.status = :status and b.start < :now order by b.start, b.id")
+    List<Booking> findByStatusAndStartBefore(@Param("status") Status status, @Param("now") Instant now,
+                                             Pageable page);
+
+    /**
+     * Бронирования вместе со всем, что читает BookingMapper.toBookingDtoOut, одним запросом.
+     */
+    @Query("select b from Booking b join fetch b.item i join fetch i.owner join fetch b.booker where b.id in :ids")
+    List<Booking> findWithItemAndBookerByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select b from Booking b where b.id in :ids and b.status = :status")
+    List<Booking> findByIdInAndStatus(@Param("ids") Collection<Long> ids, @Param("status") Status status);
+
+    /**
+     * Меняет статус одним UPDATE, только если бронирование всё ещё в статусе status.
+     */
+    @Modifying
+    @Query("update Booking b set b.status = :newStatus where b.id in :ids and b.status = :status")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("status") Status status,
+                     @Param("newStatus") Status newStatus);
+
+    /**
+     * Давно завершённые бронирования, на которые не ссылаются даты бронирований вещей.
+     */
+    @Query("select b from Booking b where b.status <> :waiting and b.end < :before and not exists " +
+            "(select d.itemId from ItemBookingDates d where d.lastBooking = b) and not exists " +
+            "(select d.itemId from ItemBookingDates d where d.nextBooking = b) " +
+            "order by b.end, b.id")
+    List<Booking> findArchivable(@Param("waiting") Status waiting, @Param("before") Instant before, Pageable page);
+
+    @Query("select b.id from Booking b where b.id in :ids and not exists " +
+            "(select d.itemId from ItemBookingDates d where d.lastBooking = b) and not exists " +
+            "(select d.itemId from ItemBookingDates d where d.nextBooking = b)")
+    List<Long> findUnreferencedIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from Booking b where b.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+}
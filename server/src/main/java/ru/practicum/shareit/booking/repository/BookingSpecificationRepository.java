@@ -0,0 +1,28 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.enums.BookingRole;
+import ru.practicum.shareit.booking.enums.State;
+import ru.practicum.shareit.pagination.Cursor;
+
+import java.time.Instant;
+
+public interface BookingSpecificationRepository {
+
+    /**
+     * Страница бронирований вместе с вещью, её владельцем и арендатором одним запросом и без подсчёта общего
+     * количества строк.
+     */
+    Slice<Booking> findSlice(Specification<Booking> spec, Pageable page);
+
+    /**
+     * То же, что {@link #findSlice}, но вместе с архивом для состояний, в которых он возможен. Страница выбирается
+     * одним запросом UNION ALL по обеим таблицам с сортировкой по убыванию начала и id, limit и offset
+     * в самом SQL, а затем бронирования страницы загружаются по id.
+     */
+    Slice<Booking> findSliceWithArchive(BookingRole role, long userId, State state, Instant now, Cursor after,
+                                        Pageable page);
+}
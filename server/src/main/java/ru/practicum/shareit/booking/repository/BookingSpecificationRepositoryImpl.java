@@ -0,0 +1,145 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.archive.ArchivedBooking;
+import ru.practicum.shareit.booking.enums.BookingRole;
+import ru.practicum.shareit.booking.enums.State;
+import ru.practicum.shareit.pagination.Cursor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Fetch;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+public class BookingSpecificationRepositoryImpl implements BookingSpecificationRepository {
+    private final EntityManager em;
+
+    @Override
+    public Slice<Booking> findSlice(Specification<Booking> spec, Pageable page) {
+        return toSlice(find(Booking.class, spec, page), page);
+    }
+
+    @Override
+    public Slice<Booking> findSliceWithArchive(BookingRole role, long userId, State state, Instant now, Cursor after,
+                                               Pageable page) {
+        String sql = "select u.id, u.archived from (" + branch("bookings", 0, role, state, after) +
+                " union all " + branch("bookings_archive", 1, role, state, after) +
+                ") u order by u.start_date desc, u.id desc limit :limit offset :offset";
+        Query query = em.createNativeQuery(sql)
+                .setParameter("userId", userId)
+                .setParameter("limit", page.getPageSize() + 1)
+                .setParameter("offset", page.getOffset());
+        if (state == State.PAST) {
+            query.setParameter("now", now);
+        }
+        if (after != null) {
+            query.setParameter("afterStart", after.getKey())
+                    .setParameter("afterId", after.getId());
+        }
+        List<Long> ids = new ArrayList<>();
+        Set<Long> live = new HashSet<>();
+        Set<Long> archived = new HashSet<>();
+        for (Object row : query.getResultList()) {
+            Object[] columns = (Object[]) row;
+            long id = ((Number) columns[0]).longValue();
+            ids.add(id);
+            (((Number) columns[1]).intValue() == 0 ? live : archived).add(id);
+        }
+        Map<Long, Booking> bookings = new HashMap<>();
+        findByIds(Booking.class, live).forEach(booking -> bookings.put(booking.getId(), booking));
+        findByIds(ArchivedBooking.class, archived).stream()
+                .map(BookingMapper::toBooking)
+                .forEach(booking -> bookings.put(booking.getId(), booking));
+        // Бронирование могли перенести в архив между запросами, тогда страница будет на него короче
+        return toSlice(ids.stream().map(bookings::get).filter(Objects::nonNull).collect(Collectors.toList()), page);
+    }
+
+    // Ветка UNION ALL: условия те же, что у BookingSpecifications для состояний с архивом
+    private static String branch(String table, int archived, BookingRole role, State state, Cursor after) {
+        StringBuilder sql = new StringBuilder("select b.id, b.start_date, ").append(archived)
+                .append(" as archived from ").append(table).append(" b");
+        if (role == BookingRole.BOOKER) {
+            sql.append(" where b.booker_id = :userId");
+        } else {
+            sql.append(" join items i on i.id = b.item_id where i.owner_id = :userId");
+        }
+        switch (state) {
+            case ALL:
+                break;
+            case PAST:
+                sql.append(" and b.end_date < :now");
+                break;
+            case REJECTED:
+                sql.append(" and b.status = 'REJECTED'");
+                break;
+            default:
+                throw new IllegalArgumentException("В архиве нет бронирований в состоянии " + state);
+        }
+        if (after != null) {
+            sql.append(" and (b.start_date < :afterStart or (b.start_date = :afterStart and b.id < :afterId))");
+        }
+        return sql.toString();
+    }
+
+    private <T> List<T> findByIds(Class<T> type, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        root.fetch("item", JoinType.INNER).fetch("owner", JoinType.INNER);
+        root.fetch("booker", JoinType.INNER);
+        query.where(root.get("id").in(ids));
+        return em.createQuery(query).getResultList();
+    }
+
+    // На одну строку больше страницы: она показывает, есть ли следующая
+    private <T> List<T> find(Class<T> type, Specification<T> spec, Pageable page) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        // Всё, что читает BookingMapper.toBookingDtoOut. Соединения внутренние, чтобы условие по владельцу
+        // могло начать поиск с индекса items по владельцу
+        Fetch<T, ?> item = root.fetch("item", JoinType.INNER);
+        item.fetch("owner", JoinType.INNER);
+        root.fetch("booker", JoinType.INNER);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(page.getSort(), root, cb));
+        return em.createQuery(query)
+                .setFirstResult((int) page.getOffset())
+                .setMaxResults(page.getPageSize() + 1)
+                .getResultList();
+    }
+
+    private static Slice<Booking> toSlice(List<Booking> bookings, Pageable page) {
+        boolean hasNext = bookings.size() > page.getPageSize();
+        List<Booking> content = hasNext ? bookings.subList(0, page.getPageSize()) : bookings;
+        return new SliceImpl<>(content, page, hasNext);
+    }
+}
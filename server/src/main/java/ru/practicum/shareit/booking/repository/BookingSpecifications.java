@@ -0,0 +1,89 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.enums.BookingRole;
+import ru.practicum.shareit.booking.enums.State;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.error.exception.UnsupportedStatusException;
+
+import javax.persistence.criteria.Fetch;
+import javax.persistence.criteria.From;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Условия поиска бронирований по роли пользователя и состоянию. Каждой паре соответствует один вид SQL-запроса:
+ * у арендатора без соединения с items по индексам bookings по арендатору, у владельца через индекс items по
+ * владельцу и индекс bookings по вещи. Условия одинаково применимы к бронированиям и к архиву.
+ */
+@Slf4j
+public final class BookingSpecifications {
+    // В архиве только завершённые и уже не ожидающие подтверждения бронирования
+    private static final Set<State> ARCHIVED_STATES = EnumSet.of(State.ALL, State.PAST, State.REJECTED);
+
+    private BookingSpecifications() {
+    }
+
+    public static <T> Specification<T> of(BookingRole role, long userId, State state, Instant now) {
+        return BookingSpecifications.<T>forUser(role, userId).and(inState(state, now));
+    }
+
+    /**
+     * Бронирования после курсора при сортировке по убыванию начала и id.
+     */
+    public static <T> Specification<T> before(Instant start, long id) {
+        return (root, query, cb) -> cb.or(cb.lessThan(root.get("start"), start),
+                cb.and(cb.equal(root.get("start"), start), cb.lessThan(root.get("id"), id)));
+    }
+
+    /**
+     * Может ли в состоянии оказаться архивное бронирование.
+     */
+    public static boolean includesArchive(State state) {
+        return ARCHIVED_STATES.contains(state);
+    }
+
+    private static <T> Specification<T> forUser(BookingRole role, long userId) {
+        if (role == BookingRole.BOOKER) {
+            return (root, query, cb) -> cb.equal(root.get("booker").get("id"), userId);
+        }
+        return (root, query, cb) -> cb.equal(item(root).get("owner").get("id"), userId);
+    }
+
+    private static <T> Specification<T> inState(State state, Instant now) {
+        switch (state) {
+            case ALL:
+                return (root, query, cb) -> null;
+            case PAST:
+                return (root, query, cb) -> cb.lessThan(root.get("end"), now);
+            case FUTURE:
+                return (root, query, cb) -> cb.greaterThan(root.get("start"), now);
+            case CURRENT:
+                return (root, query, cb) -> cb.isTrue(cb.function(BookingPeriodFunctions.OVERLAPS, Boolean.class,
+                        root.get("start"), root.get("end"), cb.literal(now), cb.literal(now)));
+            case WAITING:
+                return withStatus(Status.WAITING);
+            case REJECTED:
+                return withStatus(Status.REJECTED);
+            default:
+                log.warn("Unknown state: UNSUPPORTED_STATUS");
+                throw new UnsupportedStatusException("Unknown state: UNSUPPORTED_STATUS");
+        }
+    }
+
+    private static <T> Specification<T> withStatus(Status status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    // Уже загружаемая вместе с бронированием вещь, чтобы не соединять items второй раз
+    private static From<?, ?> item(From<?, ?> root) {
+        for (Fetch<?, ?> fetch : root.getFetches()) {
+            if (fetch instanceof From && "item".equals(fetch.getAttribute().getName())) {
+                return (From<?, ?>) fetch;
+            }
+        }
+        return root.join("item");
+    }
+}
@@ -1,9 +1,12 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingInDto;
 import ru.practicum.shareit.booking.dto.BookingOutDto;
 import ru.practicum.shareit.booking.enums.State;
+import ru.practicum.shareit.pagination.CursorPage;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface BookingService {
@@ -12,9 +15,24 @@ public interface BookingService {
 
     List<BookingOutDto> findByState(Long userId, State state, int from, int size);
 
+    CursorPage<BookingOutDto> findByStateAfter(Long userId, State state, String cursor, int size);
+
     List<BookingOutDto> findByOwnerItemsAndState(Long userId, State state, int from, int size);
 
+    CursorPage<BookingOutDto> findByOwnerItemsAndStateAfter(Long userId, State state, String cursor, int size);
+
     BookingOutDto add(Long userId, BookingInDto bookingDto);
 
+    /**
+     * Создаёт бронирования пакетом. Результаты идут в порядке запроса. Если atomic, то при ошибке
+     * хотя бы в одном бронировании не создаётся ни одно.
+     */
+    List<BookingBatchResultDto> addAll(Long userId, List<BookingInDto> bookingDtos, boolean atomic);
+
     BookingOutDto patch(Long userId, long bookingId, boolean approved);
+
+    /**
+     * Подтверждает или отклоняет ожидающие бронирования вещей пользователя одним UPDATE.
+     */
+    List<BookingOutDto> patchAll(Long userId, Collection<Long> bookingIds, boolean approved);
 }
\ No newline at end of file
@@ -2,28 +2,51 @@ package ru.practicum.shareit.booking.service;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.archive.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.availability.BookingAvailability;
+import ru.practicum.shareit.booking.availability.BookingLocks;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingInDto;
 import ru.practicum.shareit.booking.dto.BookingOutDto;
+import ru.practicum.shareit.booking.enums.BookingRole;
 import ru.practicum.shareit.booking.enums.State;
 import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingSpecifications;
 import ru.practicum.shareit.error.exception.NotFoundException;
 import ru.practicum.shareit.error.exception.OwnerBookingException;
-import ru.practicum.shareit.error.exception.UnsupportedStatusException;
 import ru.practicum.shareit.error.exception.ValidationException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserValidator;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,16 +54,22 @@ import java.util.stream.Collectors;
 @Slf4j
 @AllArgsConstructor
 public class BookingServiceImpl implements BookingService {
-    private static final Sort SORT = Sort.by(Sort.Direction.DESC, "start");
+    private static final Sort SORT = Sort.by(Sort.Direction.DESC, "start", "id");
+    private static final String OVERLAP_CONSTRAINT = "ex_bookings_approved_overlap";
 
     private final BookingRepository repository;
-    private final UserRepository userRepo;
+    private final ArchivedBookingRepository archiveRepo;
+    private final UserValidator users;
     private final ItemRepository itemRepo;
+    private final BookingAvailability availability;
+    private final BookingLocks locks;
+    private final ApplicationEventPublisher publisher;
 
     @Override
     public BookingOutDto findById(Long userId, long bookingId) {
-        checkUser(userId);
+        users.checkExists(userId);
         Booking booking = repository.findById(bookingId)
+                .or(() -> archiveRepo.findById(bookingId).map(BookingMapper::toBooking))
                 .orElseThrow(() -> new NotFoundException(String.format("Бронирование с id %d не найдено", bookingId)));
         long bookerId = booking.getBooker().getId();
         long ownerId = booking.getItem().getOwner().getId();
@@ -55,105 +84,97 @@ public class BookingServiceImpl implements BookingService {
     @Override
     public List<BookingOutDto> findByState(Long userId, State state, int from, int size) {
         //Получение списка всех бронирований текущего пользователя
-        checkUser(userId);
-        List<Booking> bookings;
-        Instant now = Instant.now();
-        PageRequest page = PageRequest.of(from / size, size, SORT);
-        switch (state) {
-            case ALL:
-                bookings = repository.findByBookerId(userId, page).getContent();
-                break;
-            case PAST:
-                bookings = repository.findByBookerIdAndEndIsBefore(userId, now, page).getContent();
-                break;
-            case FUTURE:
-                bookings = repository.findByBookerIdAndStartIsAfter(userId, now, page).getContent();
-                break;
-            case CURRENT:
-                bookings = repository.findByBookerIdAndStartIsBeforeAndEndIsAfter(userId, now, now, page).getContent();
-                break;
-            case WAITING:
-                bookings = repository.findByBookerIdAndStatus(userId, Status.WAITING, page).getContent();
-                break;
-            case REJECTED:
-                bookings = repository.findByBookerIdAndStatus(userId, Status.REJECTED, page).getContent();
-                break;
-            default:
-                log.warn("Unknown state: UNSUPPORTED_STATUS");
-                throw new UnsupportedStatusException("Unknown state: UNSUPPORTED_STATUS");
-        }
-        return bookings.stream().map(BookingMapper::toBookingDtoOut).collect(Collectors.toList());
+        return findByRoleAndState(BookingRole.BOOKER, userId, state, from, size);
     }
 
     @Override
     public List<BookingOutDto> findByOwnerItemsAndState(Long userId, State state, int from, int size) {
         //Получение списка бронирований для всех вещей текущего пользователя
-        checkUser(userId);
-        List<Booking> bookings;
-        Instant now = Instant.now();
-        PageRequest page = PageRequest.of(from / size, size, SORT);
-        switch (state) {
-            case ALL:
-                bookings = repository.findByItemOwnerId(userId, page).getContent();
-                break;
-            case PAST:
-                bookings = repository.findByItemOwnerIdAndEndIsBefore(userId, now, page).getContent();
-                break;
-            case FUTURE:
-                bookings = repository.findByItemOwnerIdAndStartIsAfter(userId, now, page).getContent();
-                break;
-            case CURRENT:
-                bookings = repository.findByItemOwnerIdAndStartIsBeforeAndEndIsAfter(userId, now, now, page).getContent();
-                break;
-            case WAITING:
-                bookings = repository.findByItemOwnerIdAndStatus(userId, Status.WAITING, page).getContent();
-                break;
-            case REJECTED:
-                bookings = repository.findByItemOwnerIdAndStatus(userId, Status.REJECTED, page).getContent();
-                break;
-            default:
-                log.warn("Unknown state: UNSUPPORTED_STATUS");
-                throw new UnsupportedStatusException("Unknown state: UNSUPPORTED_STATUS");
-        }
-        return bookings.stream().map(BookingMapper::toBookingDtoOut).collect(Collectors.toList());
+        return findByRoleAndState(BookingRole.OWNER, userId, state, from, size);
+    }
+
+    @Override
+    public CursorPage<BookingOutDto> findByStateAfter(Long userId, State state, String cursor, int size) {
+        return findByRoleAndStateAfter(BookingRole.BOOKER, userId, state, cursor, size);
+    }
+
+    @Override
+    public CursorPage<BookingOutDto> findByOwnerItemsAndStateAfter(Long userId, State state, String cursor, int size) {
+        return findByRoleAndStateAfter(BookingRole.OWNER, userId, state, cursor, size);
     }
 
     @Transactional
     @Override
     public BookingOutDto add(Long userId, BookingInDto bookingDto) {
-        User booker = checkUser(userId);
+        User booker = users.getReference(userId);
         long itemId = bookingDto.getItemId();
         Item item = checkItem(itemId);
-        if (isOwner(userId, item)) {
-            log.warn("Пользователь с id {} владелец вещи с id {}", userId, itemId);
-            throw new OwnerBookingException(String.format(
-                    "Пользователь с id %d владелец вещи с id %d", userId, itemId));
-        }
-        if (!item.isAvailable()) {
-            log.warn("Вещь с id {} недоступна для бронирования", itemId);
-            throw new ValidationException(String.format(
-                    "Вещь с id %d  недоступна для бронирования", itemId));
-        }
+        checkBookable(userId, item);
         Booking booking = BookingMapper.toBooking(bookingDto);
         Instant start = booking.getStart();
         Instant end = booking.getEnd();
-        List<Booking> bookingsAtSameTime = repository.findBookingsAtSameTime(itemId, Status.APPROVED, start, end);
-        if (!bookingsAtSameTime.isEmpty()) {
-            log.warn("Время для аренды недоступно");
-            throw new ValidationException("Время для аренды недоступно");
-        }
+        locks.lockItem(itemId);
+        checkTimeIsFree(itemId, start, end);
 
         booking.setBooker(booker);
         booking.setStatus(Status.WAITING);
         booking = repository.save(booking);
         booking.setItem(item);
+        publisher.publishEvent(BookingChangedEvent.of(booking, itemId));
         return BookingMapper.toBookingDtoOut(booking);
     }
 
+    @Transactional
+    @Override
+    public List<BookingBatchResultDto> addAll(Long userId, List<BookingInDto> bookingDtos, boolean atomic) {
+        User booker = users.getReference(userId);
+        List<Booking> bookings = bookingDtos.stream().map(BookingMapper::toBooking).collect(Collectors.toList());
+        Set<Long> itemIds = bookings.stream().map(booking -> booking.getItem().getId()).collect(Collectors.toSet());
+        Map<Long, Item> items = itemRepo.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        locks.lockItems(items.keySet());
+        Map<Long, List<Booking>> approved = findApprovedOverlapping(items.keySet(), bookings);
+
+        List<String> errors = new ArrayList<>();
+        for (Booking booking : bookings) {
+            errors.add(checkBatchEntry(userId, booking, items, approved));
+        }
+        boolean failed = errors.stream().anyMatch(Objects::nonNull);
+        List<Booking> created = new ArrayList<>();
+        if (!failed || !atomic) {
+            for (int i = 0; i < bookings.size(); i++) {
+                if (errors.get(i) == null) {
+                    Booking booking = bookings.get(i);
+                    booking.setId(null);
+                    booking.setItem(items.get(booking.getItem().getId()));
+                    booking.setBooker(booker);
+                    booking.setStatus(Status.WAITING);
+                    created.add(booking);
+                }
+            }
+            repository.saveAll(created);
+            created.forEach(booking -> publisher.publishEvent(BookingChangedEvent.of(booking,
+                    booking.getItem().getId())));
+        }
+        log.info("Пользователь с id {} создал {} из {} бронирований пакета", userId, created.size(), bookings.size());
+
+        List<BookingBatchResultDto> results = new ArrayList<>();
+        for (int i = 0; i < bookings.size(); i++) {
+            String error = errors.get(i);
+            if (error == null && failed && atomic) {
+                error = "Пакет не создан из-за ошибок в других бронированиях";
+            }
+            results.add(error == null
+                    ? BookingBatchResultDto.builder().booking(BookingMapper.toBookingDtoOut(bookings.get(i))).build()
+                    : BookingBatchResultDto.builder().error(error).build());
+        }
+        return results;
+    }
+
     @Transactional
     @Override
     public BookingOutDto patch(Long userId, long bookingId, boolean approved) {
-        checkUser(userId);
+        users.checkExists(userId);
         Booking booking = repository.findById(bookingId)
                 .orElseThrow(() -> new NotFoundException(String.format("Бронирование с id %d не найдено", bookingId)));
         Item item = booking.getItem();
@@ -168,6 +189,9 @@ public class BookingServiceImpl implements BookingService {
                 log.warn("Бронирование с id {} уже подтверждено", bookingId);
                 throw new ValidationException(String.format("Бронирование с id %d уже подтверждено", bookingId));
             }
+            // Пересечение проверяется при подтверждении: ожидающие бронирования могут пересекаться
+            locks.lockItem(item.getId());
+            checkTimeIsFree(item.getId(), booking.getStart(), booking.getEnd());
             status = Status.APPROVED;
         } else {
             if (booking.getStatus().equals(Status.REJECTED)) {
@@ -177,15 +201,189 @@ public class BookingServiceImpl implements BookingService {
             status = Status.REJECTED;
         }
         booking.setStatus(status);
-        booking = repository.save(booking);
-        return BookingMapper.toBookingDtoOut(booking);
+        Booking saved = checkOverlapConstraint(() -> repository.saveAndFlush(booking));
+        publisher.publishEvent(BookingChangedEvent.of(saved, item.getId()));
+        return BookingMapper.toBookingDtoOut(saved);
     }
 
-    private User checkUser(Long userId) {
-        return userRepo.findById(userId)
-                .orElseThrow(() -> new NotFoundException(String.format("Пользователь с id %d не найден", userId)));
+    @Transactional
+    @Override
+    public List<BookingOutDto> patchAll(Long userId, Collection<Long> bookingIds, boolean approved) {
+        users.checkExists(userId);
+        Set<Long> ids = new LinkedHashSet<>(bookingIds);
+        Map<Long, Booking> found = repository.findWithItemAndBookerByIdIn(ids).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        List<Booking> bookings = new ArrayList<>();
+        for (long bookingId : ids) {
+            Booking booking = found.get(bookingId);
+            if (booking == null) {
+                throw new NotFoundException(String.format("Бронирование с id %d не найдено", bookingId));
+            }
+            Item item = booking.getItem();
+            if (!isOwner(userId, item)) {
+                log.warn("Пользователь с id {} не владеет вещью с id {}", userId, item.getId());
+                throw new NotFoundException(
+                        String.format("Пользователь с id %d не владеет вещью с id %d", userId, item.getId()));
+            }
+            bookings.add(booking);
+        }
+        Set<Long> itemIds = bookings.stream().map(booking -> booking.getItem().getId())
+                .collect(Collectors.toSet());
+        locks.lockItems(itemIds);
+        Status status = approved ? Status.APPROVED : Status.REJECTED;
+        for (Booking booking : bookings) {
+            if (booking.getStatus() != Status.WAITING) {
+                log.warn("Бронирование с id {} уже {}", booking.getId(), statusName(booking.getStatus()));
+                throw new ValidationException(String.format("Бронирование с id %d уже %s", booking.getId(),
+                        statusName(booking.getStatus())));
+            }
+        }
+        if (approved) {
+            checkTimesAreFree(bookings);
+        }
+        int updated = checkOverlapConstraint(() -> repository.updateStatus(ids, Status.WAITING, status));
+        if (updated != ids.size()) {
+            // Бронирования успели подтвердить или отклонить параллельно, транзакция откатывается целиком
+            log.warn("Изменён статус {} бронирований из {}", updated, ids.size());
+            throw new ValidationException("Статус части бронирований уже изменён");
+        }
+        // UPDATE прошёл мимо загруженных сущностей, поэтому новый статус проставляется только в ответ и события
+        List<BookingOutDto> result = new ArrayList<>();
+        for (Booking booking : bookings) {
+            publisher.publishEvent(new BookingChangedEvent(booking.getId(), booking.getItem().getId(),
+                    booking.getStart(), booking.getEnd(), status));
+            BookingOutDto bookingDto = BookingMapper.toBookingDtoOut(booking);
+            bookingDto.setStatus(status);
+            result.add(bookingDto);
+        }
+        return result;
+    }
+
+    private List<BookingOutDto> findByRoleAndState(BookingRole role, Long userId, State state, int from, int size) {
+        users.checkExists(userId);
+        return find(role, userId, state, null, PageRequest.of(from / size, size, SORT)).getContent().stream()
+                .map(BookingMapper::toBookingDtoOut)
+                .collect(Collectors.toList());
+    }
+
+    private CursorPage<BookingOutDto> findByRoleAndStateAfter(BookingRole role, Long userId, State state,
+                                                              String cursor, int size) {
+        users.checkExists(userId);
+        Cursor after = Cursor.decodeKeyed(cursor);
+        return CursorPage.of(find(role, userId, state, after, PageRequest.of(0, size, SORT)),
+                booking -> Cursor.of(booking.getStart(), booking.getId()),
+                page -> page.stream().map(BookingMapper::toBookingDtoOut).collect(Collectors.toList()));
+    }
+
+    // Текущие, будущие и ожидающие бронирования не попадают в архив, поэтому ищутся только в bookings
+    private Slice<Booking> find(BookingRole role, long userId, State state, Cursor after, Pageable page) {
+        Instant now = Instant.now();
+        if (BookingSpecifications.includesArchive(state)) {
+            return repository.findSliceWithArchive(role, userId, state, now, after, page);
+        }
+        Specification<Booking> spec = BookingSpecifications.of(role, userId, state, now);
+        if (after != null) {
+            spec = spec.and(BookingSpecifications.before(after.getKey(), after.getId()));
+        }
+        return repository.findSlice(spec, page);
+    }
+
+    // Подтверждённые бронирования вещей пакета одним запросом за общий период всех бронирований
+    private Map<Long, List<Booking>> findApprovedOverlapping(Set<Long> itemIds, List<Booking> bookings) {
+        if (itemIds.isEmpty()) {
+            return Map.of();
+        }
+        Instant start = bookings.stream().map(Booking::getStart).min(Comparator.naturalOrder()).orElseThrow();
+        Instant end = bookings.stream().map(Booking::getEnd).max(Comparator.naturalOrder()).orElseThrow();
+        return repository.findByItemIdInAndStatusOverlapping(itemIds, Status.APPROVED, start, end).stream()
+                .collect(Collectors.groupingBy(booking -> booking.getItem().getId()));
     }
 
+    private String checkBatchEntry(long userId, Booking booking, Map<Long, Item> items,
+                                   Map<Long, List<Booking>> approved) {
+        long itemId = booking.getItem().getId();
+        Item item = items.get(itemId);
+        try {
+            if (item == null) {
+                throw new NotFoundException(String.format("Вещь с id %d не найдена", itemId));
+            }
+            checkBookable(userId, item);
+        } catch (NotFoundException | OwnerBookingException | ValidationException e) {
+            return e.getMessage();
+        }
+        boolean busy = approved.getOrDefault(itemId, List.of()).stream()
+                .anyMatch(other -> !other.getStart().isAfter(booking.getEnd())
+                        && !other.getEnd().isBefore(booking.getStart()));
+        if (busy) {
+            log.warn("Время для аренды вещи с id {} недоступно", itemId);
+            return "Время для аренды недоступно";
+        }
+        return null;
+    }
+
+    // Подтверждаемые вместе бронирования одной вещи не должны пересекаться и между собой
+    private void checkTimesAreFree(Collection<Booking> bookings) {
+        Map<Long, List<Booking>> accepted = new HashMap<>();
+        for (Booking booking : bookings) {
+            long itemId = booking.getItem().getId();
+            List<Booking> sameItem = accepted.computeIfAbsent(itemId, id -> new ArrayList<>());
+            boolean overlaps = sameItem.stream().anyMatch(other -> !other.getStart().isAfter(booking.getEnd())
+                    && !other.getEnd().isBefore(booking.getStart()));
+            if (overlaps) {
+                log.warn("Время для аренды недоступно");
+                throw new ValidationException("Время для аренды недоступно");
+            }
+            checkTimeIsFree(itemId, booking.getStart(), booking.getEnd());
+            sameItem.add(booking);
+        }
+    }
+
+    private static String statusName(Status status) {
+        switch (status) {
+            case APPROVED:
+                return "подтверждено";
+            case REJECTED:
+                return "отклонено";
+            default:
+                return "отменено";
+        }
+    }
+
+    private <T> T checkOverlapConstraint(Supplier<T> update) {
+        try {
+            return update.get();
+        } catch (DataIntegrityViolationException e) {
+            String error = e.getMessage();
+            if (error != null && error.contains(OVERLAP_CONSTRAINT)) {
+                log.warn("Время для аренды недоступно");
+                throw new ValidationException("Время для аренды недоступно");
+            }
+            throw e;
+        }
+    }
+
+    private void checkBookable(long userId, Item item) {
+        long itemId = item.getId();
+        if (isOwner(userId, item)) {
+            log.warn("Пользователь с id {} владелец вещи с id {}", userId, itemId);
+            throw new OwnerBookingException(String.format(
+                    "Пользователь с id %d владелец вещи с id %d", userId, itemId));
+        }
+        if (!item.isAvailable()) {
+            log.warn("Вещь с id {} недоступна для бронирования", itemId);
+            throw new ValidationException(String.format(
+                    "Вещь с id %d  недоступна для бронирования", itemId));
+        }
+    }
+
+    private void checkTimeIsFree(long itemId, Instant start, Instant end) {
+        if (!availability.isFree(itemId, start, end)) {
+            log.warn("Время для аренды недоступно");
+            throw new ValidationException("Время для аренды недоступно");
+        }
+    }
+
+
     private Item checkItem(Long itemId) {
         return itemRepo.findById(itemId)
                 .orElseThrow(() -> new NotFoundException(String.format("Вещь с id %d не найдена", itemId)));
@@ -195,4 +393,4 @@ public class BookingServiceImpl implements BookingService {
         long ownerId = item.getOwner().getId();
         return ownerId == userId;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,74 @@
+package ru.practicum.shareit.cache;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Кэш второго уровня Hibernate для пользователей и вещей: проверки существования в начале почти каждого
+ * метода сервисов читают одни и те же строки. Кэш живёт в памяти процесса, статистика регионов
+ * публикуется как метрики cache.gets с тегами cache и result (hit/miss).
+ * У каждого контекста свой CacheManager, чтобы контексты с разными базами не делили записи.
+ */
+@Configuration
+@ConditionalOnProperty(name = "shareit.cache.entities.enabled", havingValue = "true", matchIfMissing = true)
+public class EntityCacheConfig {
+    public static final String USERS = "users";
+    public static final String USERS_BY_EMAIL = "users-by-email";
+    public static final String ITEMS = "items";
+
+    private static final List<String> REGIONS = List.of(USERS, USERS_BY_EMAIL, ITEMS);
+
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(@Value("${shareit.cache.entities.size:10000}") long size,
+                                           @Value("${shareit.cache.entities.ttl-seconds:600}") long ttlSeconds) {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(URI.create("shareit:entities:" + UUID.randomUUID()),
+                ConfigurationBuilder.newConfigurationBuilder().withClassLoader(getClass().getClassLoader()).build());
+        for (String region : REGIONS) {
+            cacheManager.createCache(region, Eh107Configuration.fromEhcacheCacheConfiguration(
+                    CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                                    ResourcePoolsBuilder.heap(size))
+                            .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ttlSeconds)))));
+            cacheManager.enableStatistics(region, true);
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheProperties(CacheManager entityCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+            // Регионы созданы выше, регион с другим именем — ошибка в маппинге
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    @Bean
+    public MeterBinder entityCacheMetrics(CacheManager entityCacheManager) {
+        return registry -> REGIONS.forEach(region ->
+                JCacheMetrics.monitor(registry, entityCacheManager.getCache(region)));
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.shareit.datasource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Чтения, результат которых запоминается в кэше, выполняются на основной базе. Реплика может отставать,
+ * и прочитанное с неё до инвалидации осталось бы в кэше уже после неё. Внутри транзакции только на чтение
+ * соединение могло быть уже взято с реплики, поэтому загрузка идёт в отдельной транзакции.
+ * Без реплик и внутри пишущей транзакции загрузка выполняется как есть.
+ */
+@Component
+public class PrimaryReads {
+    private static final ThreadLocal<Boolean> ACTIVE = ThreadLocal.withInitial(() -> false);
+
+    private final TransactionTemplate primaryTransaction;
+
+    @Autowired
+    public PrimaryReads(PlatformTransactionManager transactionManager,
+                        ObjectProvider<ReplicaRoutingDataSource> routingDataSource) {
+        if (routingDataSource.getIfAvailable() == null) {
+            primaryTransaction = null;
+        } else {
+            primaryTransaction = new TransactionTemplate(transactionManager);
+            primaryTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            primaryTransaction.setReadOnly(true);
+        }
+    }
+
+    /**
+     * Без реплик: загрузка всегда выполняется в текущей транзакции.
+     */
+    public PrimaryReads() {
+        primaryTransaction = null;
+    }
+
+    public <T> T read(Supplier<T> loader) {
+        boolean writing = TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (primaryTransaction == null || ACTIVE.get() || writing) {
+            return loader.get();
+        }
+        ACTIVE.set(true);
+        try {
+            return primaryTransaction.execute(status -> loader.get());
+        } finally {
+            ACTIVE.remove();
+        }
+    }
+
+    static boolean isActive() {
+        return ACTIVE.get();
+    }
+}
@@ -0,0 +1,55 @@
+package ru.practicum.shareit.datasource;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Окно после записи, в течение которого чтения пользователя идут в основную базу: реплика могла ещё
+ * не получить только что закоммиченные изменения. Нулевое окно отключает отслеживание.
+ */
+public class ReadYourWrites {
+    // Просроченные отметки чистятся при записи, когда их набирается больше этого числа
+    private static final int PURGE_THRESHOLD = 1024;
+
+    private final long windowNanos;
+    private final LongSupplier nanoTime;
+    private final Map<Long, Long> deadlines = new ConcurrentHashMap<>();
+
+    public ReadYourWrites(Duration window) {
+        this(window, System::nanoTime);
+    }
+
+    ReadYourWrites(Duration window, LongSupplier nanoTime) {
+        this.windowNanos = window.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    public boolean isEnabled() {
+        return windowNanos > 0;
+    }
+
+    public void recordWrite(long userId) {
+        if (!isEnabled()) {
+            return;
+        }
+        long now = nanoTime.getAsLong();
+        if (deadlines.size() > PURGE_THRESHOLD) {
+            deadlines.values().removeIf(deadline -> deadline - now <= 0);
+        }
+        deadlines.put(userId, now + windowNanos);
+    }
+
+    public boolean wroteRecently(long userId) {
+        Long deadline = deadlines.get(userId);
+        if (deadline == null) {
+            return false;
+        }
+        if (deadline - nanoTime.getAsLong() > 0) {
+            return true;
+        }
+        deadlines.remove(userId, deadline);
+        return false;
+    }
+}
@@ -0,0 +1,54 @@
+package ru.practicum.shareit.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Основная база и реплики для транзакций только на чтение. Включается свойством
+ * shareit.datasource.replicas.urls, реплики подключаются с теми же драйвером и учётными данными,
+ * что и основная база.
+ */
+@Configuration
+@ConditionalOnProperty(name = "shareit.datasource.replicas.urls")
+@Slf4j
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(
+            DataSourceProperties properties,
+            @Value("${shareit.datasource.replicas.urls}") List<String> urls,
+            @Value("${shareit.datasource.replicas.read-your-writes-ms:0}") long readYourWritesMs) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                    .url(url.trim()).build();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        log.info("Транзакции только на чтение направляются на {} реплик, окно чтения своих записей {} мс",
+                replicas.size(), readYourWritesMs);
+        return new ReplicaRoutingDataSource(primary, replicas,
+                new ReadYourWrites(Duration.ofMillis(readYourWritesMs)));
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
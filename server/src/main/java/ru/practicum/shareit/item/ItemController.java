@@ -1,13 +1,17 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemBookingCommentsDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.service.ItemService;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -17,11 +21,15 @@ public class ItemController {
     private final ItemService service;
 
     @GetMapping
-    public List<ItemBookingCommentsDto> findAllByUserId(
+    public ResponseEntity<List<ItemBookingCommentsDto>> findAllByUserId(
             @RequestHeader("X-Sharer-User-Id") long userId,
             @RequestParam int from,
-            @RequestParam int size) {
-        return service.findAllByUserId(userId, from, size);
+            @RequestParam int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return service.findAllByUserIdAfter(userId, cursor, size).toResponse();
+        }
+        return ResponseEntity.ok(service.findAllByUserId(userId, from, size));
     }
 
     @GetMapping("{itemId}")
@@ -30,12 +38,37 @@ public class ItemController {
         return service.findById(userId, itemId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto findAvailability(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                @PathVariable long itemId,
+                                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                                LocalDate from,
+                                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                                LocalDate to) {
+        return service.findAvailability(userId, itemId, from, to);
+    }
+
     @GetMapping("/search")
-    public List<ItemDto> findByText(
+    public ResponseEntity<List<ItemDto>> findByText(
             @RequestParam String text,
             @RequestParam int from,
-            @RequestParam int size) {
-        return service.findByText(text, from, size);
+            @RequestParam int size,
+            @RequestParam(defaultValue = "false") boolean ranked,
+            @RequestParam(required = false) String cursor) {
+        if (ranked) {
+            return ResponseEntity.ok(service.findByTextRanked(text, from, size));
+        }
+        if (cursor != null) {
+            return service.findByTextAfter(text, cursor, size).toResponse();
+        }
+        return ResponseEntity.ok(service.findByText(text, from, size));
+    }
+
+    @GetMapping("/suggest")
+    public List<String> suggestNames(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int size) {
+        return service.suggestNames(prefix, size);
     }
 
     @PostMapping
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.detail;
+
+import lombok.Value;
+import ru.practicum.shareit.item.dto.ItemBookingCommentsDto;
+
+/**
+ * Не зависящая от просматривающего часть карточки вещи: сама вещь и отзывы, без бронирований.
+ */
+@Value
+public class ItemDetail {
+    long ownerId;
+    ItemBookingCommentsDto item;
+}
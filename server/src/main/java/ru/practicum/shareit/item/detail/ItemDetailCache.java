@@ -0,0 +1,135 @@
+package ru.practicum.shareit.item.detail;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.datasource.PrimaryReads;
+import ru.practicum.shareit.item.event.CommentAddedEvent;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * Кэш карточек вещей для GET /items/{id}. Хранится только то, что одинаково для всех: вещь и отзывы.
+ * Бронирования видит только владелец, их сервис добавляет к копии карточки при каждом запросе.
+ * Запись удаляется после коммита изменения или удаления вещи и нового отзыва, остальное (например,
+ * новое имя автора отзыва) обновится по истечении shareit.item.detail-cache.ttl-ms.
+ */
+@Component
+public class ItemDetailCache {
+    private static final String NAME = "items.detail";
+
+    private final PrimaryReads primaryReads;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+    private final Map<Long, Entry> details;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private long generation;
+
+    @Autowired
+    public ItemDetailCache(PrimaryReads primaryReads,
+                           MeterRegistry registry,
+                           @Value("${shareit.item.detail-cache.size:1000}") int maxSize,
+                           @Value("${shareit.item.detail-cache.ttl-ms:60000}") long ttlMs) {
+        this(primaryReads, registry, maxSize, Duration.ofMillis(ttlMs), System::nanoTime);
+    }
+
+    ItemDetailCache(PrimaryReads primaryReads, MeterRegistry registry, int maxSize, Duration ttl,
+                    LongSupplier nanoTime) {
+        this.primaryReads = primaryReads;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoTime = nanoTime;
+        this.details = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > ItemDetailCache.this.maxSize) {
+                    ItemDetailCache.this.evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.hits = Counter.builder("cache.gets").tag("cache", NAME).tag("result", "hit").register(registry);
+        this.misses = Counter.builder("cache.gets").tag("cache", NAME).tag("result", "miss").register(registry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", NAME).register(registry);
+        Gauge.builder("cache.size", this, ItemDetailCache::itemCount).tag("cache", NAME).register(registry);
+    }
+
+    /**
+     * Карточка из кэша или от loader. Возвращается копия, которую вызывающий может дополнять.
+     * Результат не кладётся в кэш, если за время загрузки что-то было удалено из кэша.
+     */
+    public ItemDetail get(long itemId, LongFunction<ItemDetail> loader) {
+        long loadedGeneration;
+        synchronized (this) {
+            Entry cached = details.get(itemId);
+            if (cached != null && cached.deadline - nanoTime.getAsLong() > 0) {
+                hits.increment();
+                return copy(cached.detail);
+            }
+            loadedGeneration = generation;
+        }
+        misses.increment();
+        ItemDetail loaded = primaryReads.read(() -> loader.apply(itemId));
+        synchronized (this) {
+            if (loadedGeneration == generation) {
+                details.put(itemId, new Entry(copy(loaded), nanoTime.getAsLong() + ttlNanos));
+            }
+        }
+        return loaded;
+    }
+
+    public synchronized int itemCount() {
+        return details.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        invalidate(event.getItemId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentAdded(CommentAddedEvent event) {
+        invalidate(event.getItemId());
+    }
+
+    // Вместе с пользователем удаляются его вещи и отзывы к чужим вещам
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onUserDeleted(UserDeletedEvent event) {
+        generation++;
+        details.clear();
+    }
+
+    private synchronized void invalidate(long itemId) {
+        generation++;
+        details.remove(itemId);
+    }
+
+    private static ItemDetail copy(ItemDetail detail) {
+        return new ItemDetail(detail.getOwnerId(), ItemMapper.copy(detail.getItem()));
+    }
+
+    private static final class Entry {
+        private final ItemDetail detail;
+        private final long deadline;
+
+        private Entry(ItemDetail detail, long deadline) {
+            this.detail = detail;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.shareit.item.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import ru.practicum.shareit.item.model.Item;
+
+/**
+ * Изменение вещи. Для удалённой вещи поля описывают её последнее состояние,
+ * для отредактированной заполнены также поля previous*.
+ */
+@Value
+@AllArgsConstructor
+public class ItemChangedEvent {
+    long itemId;
+    long ownerId;
+    String name;
+    String description;
+    boolean available;
+    boolean deleted;
+    String previousName;
+    String previousDescription;
+    boolean previouslyAvailable;
+
+    public ItemChangedEvent(long itemId, long ownerId, String name, String description, boolean available,
+                            boolean deleted) {
+        this(itemId, ownerId, name, description, available, deleted, null, null, false);
+    }
+
+    public static ItemChangedEvent saved(Item item) {
+        return new ItemChangedEvent(item.getId(), item.getOwner().getId(), item.getName(),
+                item.getDescription(), item.isAvailable(), false);
+    }
+
+    public static ItemChangedEvent updated(Item item, String previousName, String previousDescription,
+                                           boolean previouslyAvailable) {
+        return new ItemChangedEvent(item.getId(), item.getOwner().getId(), item.getName(),
+                item.getDescription(), item.isAvailable(), false,
+                previousName, previousDescription, previouslyAvailable);
+    }
+
+    public static ItemChangedEvent deleted(Item item) {
+        return new ItemChangedEvent(item.getId(), item.getOwner().getId(), item.getName(),
+                item.getDescription(), item.isAvailable(), true);
+    }
+
+    public boolean hasPrevious() {
+        return previousName != null;
+    }
+}
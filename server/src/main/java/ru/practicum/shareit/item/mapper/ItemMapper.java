@@ -27,6 +27,23 @@ public class ItemMapper {
                 .build();
     }
 
+    /**
+     * Копия с собственным списком отзывов, чтобы дополнение копии не меняло оригинал.
+     */
+    public static ItemBookingCommentsDto copy(ItemBookingCommentsDto itemDto) {
+        ItemBookingCommentsDto copy = ItemBookingCommentsDto.builder()
+                .id(itemDto.getId())
+                .name(itemDto.getName())
+                .description(itemDto.getDescription())
+                .available(itemDto.getAvailable())
+                .requestId(itemDto.getRequestId())
+                .lastBooking(itemDto.getLastBooking())
+                .nextBooking(itemDto.getNextBooking())
+                .build();
+        itemDto.getComments().forEach(copy::addComment);
+        return copy;
+    }
+
     public static Item toItem(ItemDto itemDto, User owner) {
         Item item = new Item();
         item.setId(itemDto.getId());
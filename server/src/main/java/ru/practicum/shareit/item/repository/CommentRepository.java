@@ -2,7 +2,9 @@ package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.item.model.Comment;
 
@@ -10,7 +12,10 @@ import java.util.List;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long>, CrudRepository<Comment, Long> {
-    List<Comment> findAllByItemId(Long id, Sort sort);
+    // Условие по внешнему ключу: производный запрос присоединяет items и фильтрует по items.id
+    @Query("select c from Comment c where c.item.id = :itemId")
+    List<Comment> findAllByItemId(@Param("itemId") Long id, Sort sort);
 
-    List<Comment> findAllByItemIdIn(List<Long> itemIds, Sort sort);
+    @Query("select c from Comment c where c.item.id in :itemIds")
+    List<Comment> findAllByItemIdIn(@Param("itemIds") List<Long> itemIds, Sort sort);
 }
@@ -1,7 +1,7 @@
 package ru.practicum.shareit.item.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
@@ -9,6 +9,8 @@ import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemRankView;
+import ru.practicum.shareit.item.search.ItemSearchView;
 
 import java.util.List;
 
@@ -16,13 +18,67 @@ import java.util.List;
 public interface ItemRepository extends JpaRepository<Item, Long>, CrudRepository<Item, Long>,
         PagingAndSortingRepository<Item, Long> {
 
-    Page<Item> findByOwnerId(long userId, Pageable page);
+    // Условие по внешнему ключу: производный запрос присоединяет users и фильтрует по users.id
+    @Query("select i from Item i where i.owner.id = :userId")
+    Slice<Item> findByOwnerId(@Param("userId") long userId, Pageable page);
+
+    @Query("select i from Item i where i.owner.id = :userId and i.id > :afterId order by i.id")
+    List<Item> findByOwnerIdAndIdGreaterThanOrderById(@Param("userId") long userId, @Param("afterId") long afterId,
+                                                      Pageable page);
+
+    @Query(" select i from Item i " +
+            "where (lower(i.name) like concat('%', :text, '%') " +
+            " or lower(i.description) like concat('%', :text, '%')) " +
+            " and i.available = true " +
+            "order by i.id")
+    Slice<Item> searchWithPaging(@Param("text") String text, Pageable page);
 
     @Query(" select i from Item i " +
             "where (lower(i.name) like concat('%', :text, '%') " +
             " or lower(i.description) like concat('%', :text, '%')) " +
-            " and i.available = true")
-    Page<Item> searchWithPaging(@Param("text") String text, Pageable page);
+            " and i.available = true and i.id > :afterId " +
+            "order by i.id")
+    List<Item> searchAfter(@Param("text") String text, @Param("afterId") long afterId, Pageable page);
+
+    @Query(value = "select i.* from items i " +
+            "where i.available " +
+            " and (i.search_vector @@ plainto_tsquery('russian', :text) " +
+            " or lower(i.name) like '%' || :text || '%' " +
+            " or lower(i.description) like '%' || :text || '%') " +
+            "order by i.id",
+            nativeQuery = true)
+    Slice<Item> searchFullTextWithPaging(@Param("text") String text, Pageable page);
+
+    @Query(value = "select i.id as id, " +
+            " cast(ts_rank(i.search_vector, plainto_tsquery('russian', :text)) as double precision) as score " +
+            "from items i " +
+            "where i.available " +
+            " and (i.search_vector @@ plainto_tsquery('russian', :text) " +
+            " or lower(i.name) like '%' || :text || '%' " +
+            " or lower(i.description) like '%' || :text || '%') " +
+            "order by score desc, i.id",
+            nativeQuery = true)
+    List<ItemRankView> searchFullTextRanked(@Param("text") String text, Pageable page);
+
+    @Query(value = "select i.* from items i " +
+            "where i.available and i.id > :afterId " +
+            " and (i.search_vector @@ plainto_tsquery('russian', :text) " +
+            " or lower(i.name) like '%' || :text || '%' " +
+            " or lower(i.description) like '%' || :text || '%') " +
+            "order by i.id",
+            nativeQuery = true)
+    List<Item> searchFullTextAfter(@Param("text") String text, @Param("afterId") long afterId, Pageable page);
+
+    @Query(" select i.id as id, i.owner.id as ownerId, i.name as name, i.description as description " +
+            "from Item i " +
+            "where i.available = true and i.id > :afterId " +
+            "order by i.id")
+    List<ItemSearchView> findSearchViewsAfter(@Param("afterId") long afterId, Pageable page);
+
+    @Query(" select distinct i.name from Item i " +
+            "where i.available = true and lower(i.name) like concat(:prefix, '%') " +
+            "order by i.name")
+    List<String> findNamesByPrefix(@Param("prefix") String prefix, Pageable page);
 
     List<Item> findByRequestId(long requestId);
 
@@ -0,0 +1,180 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Подсказки по началу названия доступных вещей.
+ * Названия без учёта регистра хранятся в отсортированном словаре со счётчиком вещей,
+ * поэтому подсказки по префиксу — это просмотр первых элементов диапазона за O(log n + size).
+ * Словарь, как и {@link ItemSearchIndex}, видит только изменения своего узла, поэтому строится лишь
+ * при shareit.search.mode=index; в остальных режимах подсказки идут запросом к БД.
+ */
+@Component
+@Slf4j
+public class ItemNameSuggester {
+    private static final int BATCH_SIZE = 10_000;
+
+    private final ItemRepository repository;
+    private final boolean enabled;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final NavigableMap<String, Suggestion> suggestions = new TreeMap<>();
+    private final Map<Long, Entry> items = new HashMap<>();
+    private final List<Runnable> pending = new ArrayList<>();
+    private boolean building;
+    private volatile boolean ready;
+
+    public ItemNameSuggester(ItemRepository repository, @Value("${shareit.search.mode:database}") SearchMode mode) {
+        this.repository = repository;
+        this.enabled = mode == SearchMode.INDEX;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        write(() -> {
+            ready = false;
+            building = true;
+            suggestions.clear();
+            items.clear();
+        });
+        try {
+            long afterId = 0;
+            List<ItemSearchView> batch;
+            do {
+                batch = repository.findSearchViewsAfter(afterId, PageRequest.of(0, BATCH_SIZE));
+                List<ItemSearchView> loaded = batch;
+                write(() -> loaded.forEach(view -> put(view.getId(), view.getOwnerId(), view.getName())));
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == BATCH_SIZE);
+            write(() -> {
+                pending.forEach(Runnable::run);
+                pending.clear();
+                building = false;
+                ready = true;
+                log.info("Словарь подсказок построен, названий: {}", suggestions.size());
+            });
+        } catch (RuntimeException e) {
+            log.error("Не удалось построить словарь подсказок: {}", e.getMessage(), e);
+            write(() -> {
+                pending.clear();
+                building = false;
+            });
+        }
+    }
+
+    public List<String> suggest(String prefix, int size) {
+        String key = prefix.toLowerCase();
+        if (!ready) {
+            return repository.findNamesByPrefix(key, PageRequest.of(0, size));
+        }
+        List<String> names = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Suggestion suggestion : suggestions.tailMap(key, true).values()) {
+                if (names.size() == size || !suggestion.key.startsWith(key)) {
+                    break;
+                }
+                names.add(suggestion.name);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return names;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        apply(() -> {
+            if (event.isDeleted() || !event.isAvailable()) {
+                remove(event.getItemId());
+            } else {
+                put(event.getItemId(), event.getOwnerId(), event.getName());
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        apply(() -> new ArrayList<>(items.entrySet()).stream()
+                .filter(entry -> entry.getValue().ownerId == event.getUserId())
+                .forEach(entry -> remove(entry.getKey())));
+    }
+
+    private void apply(Runnable change) {
+        if (!enabled) {
+            return;
+        }
+        write(() -> {
+            if (building) {
+                pending.add(change);
+            } else {
+                change.run();
+            }
+        });
+    }
+
+    private void put(long itemId, long ownerId, String name) {
+        remove(itemId);
+        String key = name.toLowerCase();
+        items.put(itemId, new Entry(ownerId, key));
+        suggestions.computeIfAbsent(key, k -> new Suggestion(k, name)).count++;
+    }
+
+    private void remove(long itemId) {
+        Entry entry = items.remove(itemId);
+        if (entry == null) {
+            return;
+        }
+        Suggestion suggestion = suggestions.get(entry.key);
+        if (--suggestion.count == 0) {
+            suggestions.remove(entry.key);
+        }
+    }
+
+    private void write(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class Entry {
+        private final long ownerId;
+        private final String key;
+
+        private Entry(long ownerId, String key) {
+            this.ownerId = ownerId;
+            this.key = key;
+        }
+    }
+
+    private static final class Suggestion {
+        private final String key;
+        private final String name;
+        private int count;
+
+        private Suggestion(String key, String name) {
+            this.key = key;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.item.search;
+
+public interface ItemRankView {
+    Long getId();
+
+    Double getScore();
+}
@@ -0,0 +1,194 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.datasource.PrimaryReads;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Кэш результатов поиска по тексту с вытеснением давно не запрошенных страниц.
+ * При изменении вещи удаляются только страницы запросов, которым вещь соответствовала до или после изменения,
+ * поэтому правка одной вещи не сбрасывает весь кэш.
+ * Полнотекстовый режим учитывает словоформы, совпадение по которым здесь не проверить, поэтому в нём кэш
+ * очищается целиком.
+ * События приходят только от своего узла, поэтому страница живёт не дольше shareit.search.cache.ttl-ms:
+ * изменения, сделанные другими экземплярами сервера, видны не позже этого срока.
+ */
+@Component
+@Slf4j
+public class ItemSearchCache {
+    private static final String NAME = "items.search";
+
+    private final PrimaryReads primaryReads;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+    private final boolean fullText;
+    private final Map<Key, Entry> pages;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private long generation;
+
+    @Autowired
+    public ItemSearchCache(PrimaryReads primaryReads,
+                           MeterRegistry registry,
+                           @Value("${shareit.search.mode:database}") SearchMode mode,
+                           @Value("${shareit.search.cache.size:1000}") int maxSize,
+                           @Value("${shareit.search.cache.ttl-ms:60000}") long ttlMs) {
+        this(primaryReads, registry, mode, maxSize, Duration.ofMillis(ttlMs), System::nanoTime);
+    }
+
+    ItemSearchCache(PrimaryReads primaryReads, MeterRegistry registry, SearchMode mode, int maxSize, Duration ttl,
+                    LongSupplier nanoTime) {
+        this.primaryReads = primaryReads;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoTime = nanoTime;
+        this.fullText = mode == SearchMode.FULL_TEXT;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > ItemSearchCache.this.maxSize) {
+                    ItemSearchCache.this.evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.hits = Counter.builder("cache.gets").tag("cache", NAME).tag("result", "hit").register(registry);
+        this.misses = Counter.builder("cache.gets").tag("cache", NAME).tag("result", "miss").register(registry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", NAME).register(registry);
+        Gauge.builder("cache.size", this, ItemSearchCache::pageCount).tag("cache", NAME).register(registry);
+    }
+
+    /**
+     * Страница из кэша или результат loader. Результат не кладётся в кэш, если за время загрузки
+     * что-то было сброшено: загрузка могла прочитать данные до изменения.
+     */
+    public List<ItemDto> get(String text, int from, int size, Supplier<List<ItemDto>> loader) {
+        Key key = new Key(text, from, size);
+        long loadedGeneration;
+        synchronized (this) {
+            Entry cached = pages.get(key);
+            if (cached != null && cached.deadline - nanoTime.getAsLong() > 0) {
+                hits.increment();
+                return cached.page;
+            }
+            loadedGeneration = generation;
+        }
+        misses.increment();
+        List<ItemDto> loaded = Collections.unmodifiableList(primaryReads.read(loader));
+        synchronized (this) {
+            if (loadedGeneration == generation) {
+                pages.put(key, new Entry(loaded, nanoTime.getAsLong() + ttlNanos));
+            }
+        }
+        return loaded;
+    }
+
+    public synchronized int pageCount() {
+        return pages.size();
+    }
+
+    // После обновления индекса, иначе страница могла бы снова заполниться из устаревшего индекса
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public synchronized void onItemChanged(ItemChangedEvent event) {
+        generation++;
+        if (fullText) {
+            pages.clear();
+            return;
+        }
+        Set<String> affected = new HashSet<>();
+        for (Key key : pages.keySet()) {
+            if (!affected.contains(key.text) && isAffected(key.text, event)) {
+                affected.add(key.text);
+            }
+        }
+        if (!affected.isEmpty()) {
+            pages.keySet().removeIf(key -> affected.contains(key.text));
+            log.debug("Из кэша поиска удалены запросы {} после изменения вещи {}", affected, event.getItemId());
+        }
+    }
+
+    // Вещи удалённого пользователя неизвестны, поэтому кэш очищается целиком
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public synchronized void onUserDeleted(UserDeletedEvent event) {
+        generation++;
+        pages.clear();
+    }
+
+    private static boolean isAffected(String text, ItemChangedEvent event) {
+        if (matches(text, event.getName(), event.getDescription(), event.isAvailable())) {
+            return true;
+        }
+        return event.hasPrevious()
+                && matches(text, event.getPreviousName(), event.getPreviousDescription(),
+                event.isPreviouslyAvailable());
+    }
+
+    // Те же условия, что и в like-запросе; % и _ в тексте там работают как шаблоны
+    private static boolean matches(String text, String name, String description, boolean available) {
+        if (!available) {
+            return false;
+        }
+        return text.indexOf('%') >= 0 || text.indexOf('_') >= 0
+                || name.toLowerCase().contains(text) || description.toLowerCase().contains(text);
+    }
+
+    private static final class Entry {
+        private final List<ItemDto> page;
+        private final long deadline;
+
+        private Entry(List<ItemDto> page, long deadline) {
+            this.page = page;
+            this.deadline = deadline;
+        }
+    }
+
+    private static final class Key {
+        private final String text;
+        private final int from;
+        private final int size;
+
+        private Key(String text, int from, int size) {
+            this.text = text;
+            this.from = from;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return from == key.from && size == key.size && text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(text, from, size);
+        }
+    }
+}
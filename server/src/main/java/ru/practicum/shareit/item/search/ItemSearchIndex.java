@@ -0,0 +1,427 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Триграммный индекс доступных вещей в памяти.
+ * Кандидаты берутся из пересечения списков триграмм запроса и проверяются через contains,
+ * поэтому результат совпадает с like-запросом {@link ItemRepository#searchWithPaging}.
+ * Ранжированный поиск считает BM25F по словам запроса с большим весом совпадений в названии.
+ */
+@Component
+@Slf4j
+public class ItemSearchIndex {
+    private static final int GRAM = 3;
+    private static final int BATCH_SIZE = 10_000;
+    private static final int COMPACT_THRESHOLD = 10_000;
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final double NAME_WEIGHT = 3.0;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final ItemRepository repository;
+    private final boolean enabled;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private final List<Runnable> pending = new ArrayList<>();
+    private BitSet live = new BitSet();
+    private long[] itemIds = new long[0];
+    private long[] ownerIds = new long[0];
+    private String[] names = new String[0];
+    private String[] descriptions = new String[0];
+    private int[] nameLengths = new int[0];
+    private int[] descriptionLengths = new int[0];
+    private long totalNameLength;
+    private long totalDescriptionLength;
+    private int size;
+    private int dead;
+    private boolean building;
+    private volatile boolean ready;
+
+    public ItemSearchIndex(ItemRepository repository, @Value("${shareit.search.mode:database}") SearchMode mode) {
+        this.repository = repository;
+        this.enabled = mode == SearchMode.INDEX;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        write(() -> {
+            ready = false;
+            building = true;
+            clear();
+        });
+        try {
+            long afterId = 0;
+            List<ItemSearchView> batch;
+            do {
+                batch = repository.findSearchViewsAfter(afterId, PageRequest.of(0, BATCH_SIZE));
+                List<ItemSearchView> loaded = batch;
+                write(() -> loaded.forEach(view -> put(view.getId(), view.getOwnerId(),
+                        view.getName(), view.getDescription())));
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == BATCH_SIZE);
+            write(() -> {
+                pending.forEach(Runnable::run);
+                pending.clear();
+                building = false;
+                ready = true;
+                log.info("Поисковый индекс построен, вещей в индексе: {}", ordinals.size());
+            });
+        } catch (RuntimeException e) {
+            log.error("Не удалось построить поисковый индекс: {}", e.getMessage(), e);
+            write(() -> {
+                pending.clear();
+                building = false;
+            });
+        }
+    }
+
+    public List<Long> search(String text, long offset, int limit) {
+        long[] found = found(text);
+        List<Long> ids = new ArrayList<>();
+        for (long i = offset; i < found.length && ids.size() < limit; i++) {
+            ids.add(found[(int) i]);
+        }
+        return ids;
+    }
+
+    public List<Long> searchAfter(String text, long afterId, int limit) {
+        long[] found = found(text);
+        int from = Arrays.binarySearch(found, afterId);
+        from = from >= 0 ? from + 1 : -from - 1;
+        List<Long> ids = new ArrayList<>();
+        for (int i = from; i < found.length && ids.size() < limit; i++) {
+            ids.add(found[i]);
+        }
+        return ids;
+    }
+
+    // Вещь находится, если содержит хотя бы одно слово запроса; в куче остаются только лучшие offset + limit
+    public LinkedHashMap<Long, Double> searchRanked(String text, long offset, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokens(text));
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 1, offset + limit);
+        PriorityQueue<Hit> top = new PriorityQueue<>(Comparator.comparingDouble((Hit hit) -> hit.score)
+                .thenComparing(hit -> hit.itemId, Comparator.reverseOrder()));
+        lock.readLock().lock();
+        try {
+            Map<Integer, Double> scores = new HashMap<>();
+            int docs = Math.max(1, ordinals.size());
+            double avgNameLength = Math.max(1.0, (double) totalNameLength / docs);
+            double avgDescriptionLength = Math.max(1.0, (double) totalDescriptionLength / docs);
+            for (String term : terms) {
+                int[] matched = matching(term);
+                double idf = Math.log(1 + (docs - matched.length + 0.5) / (matched.length + 0.5));
+                for (int ord : matched) {
+                    double tf = NAME_WEIGHT * occurrences(names[ord], term)
+                            / (1 - B + B * nameLengths[ord] / avgNameLength)
+                            + DESCRIPTION_WEIGHT * occurrences(descriptions[ord], term)
+                            / (1 - B + B * descriptionLengths[ord] / avgDescriptionLength);
+                    scores.merge(ord, idf * tf * (K1 + 1) / (tf + K1), Double::sum);
+                }
+            }
+            scores.forEach((ord, score) -> {
+                top.add(new Hit(itemIds[ord], score));
+                if (top.size() > capacity) {
+                    top.poll();
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Hit> hits = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            hits.add(top.poll());
+        }
+        Collections.reverse(hits);
+        LinkedHashMap<Long, Double> ranked = new LinkedHashMap<>();
+        for (long i = offset; i < hits.size() && ranked.size() < limit; i++) {
+            Hit hit = hits.get((int) i);
+            ranked.put(hit.itemId, hit.score);
+        }
+        return ranked;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onItemChanged(ItemChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Runnable change = () -> {
+            if (event.isDeleted() || !event.isAvailable()) {
+                remove(event.getItemId());
+            } else {
+                put(event.getItemId(), event.getOwnerId(), event.getName(), event.getDescription());
+            }
+        };
+        write(() -> {
+            if (building) {
+                pending.add(change);
+            } else {
+                change.run();
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onUserDeleted(UserDeletedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        // Сначала собираются id: remove может сжать индекс и перенумеровать позиции посреди обхода
+        Runnable change = () -> {
+            List<Long> owned = new ArrayList<>();
+            for (int ord = live.nextSetBit(0); ord >= 0; ord = live.nextSetBit(ord + 1)) {
+                if (ownerIds[ord] == event.getUserId()) {
+                    owned.add(itemIds[ord]);
+                }
+            }
+            owned.forEach(this::remove);
+        };
+        write(() -> {
+            if (building) {
+                pending.add(change);
+            } else {
+                change.run();
+            }
+        });
+    }
+
+    private long[] found(String text) {
+        long[] found;
+        lock.readLock().lock();
+        try {
+            int[] matched = matching(text);
+            found = new long[matched.length];
+            for (int i = 0; i < matched.length; i++) {
+                found[i] = itemIds[matched[i]];
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Arrays.sort(found);
+        return found;
+    }
+
+    private int[] matching(String text) {
+        return text.length() < GRAM ? scan(text) : lookup(text);
+    }
+
+    private int[] scan(String text) {
+        int[] found = new int[ordinals.size()];
+        int count = 0;
+        for (int ord = live.nextSetBit(0); ord >= 0; ord = live.nextSetBit(ord + 1)) {
+            if (matches(ord, text)) {
+                found[count++] = ord;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    private int[] lookup(String text) {
+        List<IntList> lists = new ArrayList<>();
+        for (long gram : grams(text)) {
+            IntList list = postings.get(gram);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+        IntList smallest = lists.get(0);
+        int[] found = new int[smallest.size];
+        int count = 0;
+        for (int i = 0; i < smallest.size; i++) {
+            int ord = smallest.values[i];
+            if (live.get(ord) && containsAll(lists, ord) && matches(ord, text)) {
+                found[count++] = ord;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    private boolean containsAll(List<IntList> lists, int ord) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(ord)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matches(int ord, String text) {
+        return names[ord].contains(text) || descriptions[ord].contains(text);
+    }
+
+    private void put(long itemId, long ownerId, String name, String description) {
+        remove(itemId);
+        if (size == itemIds.length) {
+            grow();
+        }
+        int ord = size++;
+        itemIds[ord] = itemId;
+        ownerIds[ord] = ownerId;
+        names[ord] = name.toLowerCase();
+        descriptions[ord] = description.toLowerCase();
+        nameLengths[ord] = tokens(names[ord]).size();
+        descriptionLengths[ord] = tokens(descriptions[ord]).size();
+        totalNameLength += nameLengths[ord];
+        totalDescriptionLength += descriptionLengths[ord];
+        live.set(ord);
+        ordinals.put(itemId, ord);
+        addPostings(ord);
+    }
+
+    private void remove(long itemId) {
+        Integer ord = ordinals.remove(itemId);
+        if (ord == null) {
+            return;
+        }
+        live.clear(ord);
+        totalNameLength -= nameLengths[ord];
+        totalDescriptionLength -= descriptionLengths[ord];
+        names[ord] = null;
+        descriptions[ord] = null;
+        dead++;
+        if (dead > COMPACT_THRESHOLD && dead > ordinals.size()) {
+            compact();
+        }
+    }
+
+    // Удалённые и изменённые вещи остаются в списках триграмм, пока их не станет больше живых
+    private void compact() {
+        long[] oldItemIds = itemIds;
+        long[] oldOwnerIds = ownerIds;
+        String[] oldNames = names;
+        String[] oldDescriptions = descriptions;
+        BitSet oldLive = live;
+        clear();
+        for (int ord = oldLive.nextSetBit(0); ord >= 0; ord = oldLive.nextSetBit(ord + 1)) {
+            put(oldItemIds[ord], oldOwnerIds[ord], oldNames[ord], oldDescriptions[ord]);
+        }
+        log.debug("Поисковый индекс сжат, вещей в индексе: {}", ordinals.size());
+    }
+
+    private void addPostings(int ord) {
+        Set<Long> grams = grams(names[ord]);
+        grams.addAll(grams(descriptions[ord]));
+        grams.forEach(gram -> postings.computeIfAbsent(gram, key -> new IntList()).add(ord));
+    }
+
+    private void grow() {
+        int capacity = Math.max(1024, size + (size >> 1));
+        itemIds = Arrays.copyOf(itemIds, capacity);
+        ownerIds = Arrays.copyOf(ownerIds, capacity);
+        names = Arrays.copyOf(names, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+        nameLengths = Arrays.copyOf(nameLengths, capacity);
+        descriptionLengths = Arrays.copyOf(descriptionLengths, capacity);
+    }
+
+    private void clear() {
+        ordinals.clear();
+        postings.clear();
+        live = new BitSet();
+        itemIds = new long[0];
+        ownerIds = new long[0];
+        names = new String[0];
+        descriptions = new String[0];
+        nameLengths = new int[0];
+        descriptionLengths = new int[0];
+        totalNameLength = 0;
+        totalDescriptionLength = 0;
+        size = 0;
+        dead = 0;
+    }
+
+    private void write(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static int occurrences(String field, String term) {
+        int count = 0;
+        for (String token : tokens(field)) {
+            if (token.contains(term)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static Set<Long> grams(String text) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    private static final class Hit {
+        private final long itemId;
+        private final double score;
+
+        private Hit(long itemId, double score) {
+            this.itemId = itemId;
+            this.score = score;
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size + (size >> 1) + 1);
+            }
+            values[size++] = value;
+        }
+
+        private boolean contains(int value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+    }
+}
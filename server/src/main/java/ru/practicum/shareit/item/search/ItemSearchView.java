@@ -0,0 +1,11 @@
+package ru.practicum.shareit.item.search;
+
+public interface ItemSearchView {
+    Long getId();
+
+    Long getOwnerId();
+
+    String getName();
+
+    String getDescription();
+}
@@ -0,0 +1,79 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.error.exception.ValidationException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Component
+public class ItemSearcher {
+    private final ItemRepository repository;
+    private final ItemSearchIndex index;
+    private final SearchMode mode;
+
+    public ItemSearcher(ItemRepository repository, ItemSearchIndex index,
+                        @Value("${shareit.search.mode:database}") SearchMode mode) {
+        this.repository = repository;
+        this.index = index;
+        this.mode = mode;
+    }
+
+    public List<Item> search(String text, PageRequest page) {
+        if (index.isReady()) {
+            List<Long> ids = index.search(text, page.getOffset(), page.getPageSize());
+            return findAllByIdsInOrder(ids);
+        }
+        if (mode == SearchMode.FULL_TEXT) {
+            return repository.searchFullTextWithPaging(text, page).getContent();
+        }
+        return repository.searchWithPaging(text, page).getContent();
+    }
+
+    public List<Item> searchAfter(String text, long afterId, int size) {
+        if (index.isReady()) {
+            return findAllByIdsInOrder(index.searchAfter(text, afterId, size));
+        }
+        PageRequest page = PageRequest.of(0, size);
+        if (mode == SearchMode.FULL_TEXT) {
+            return repository.searchFullTextAfter(text, afterId, page);
+        }
+        return repository.searchAfter(text, afterId, page);
+    }
+
+    // Релевантность считает индекс или ts_rank в PostgreSQL; like-поиску ранжировать нечем
+    public LinkedHashMap<Item, Double> searchRanked(String text, PageRequest page) {
+        if (mode == SearchMode.DATABASE) {
+            throw new ValidationException(
+                    "Ранжированный поиск доступен только при shareit.search.mode=index или full_text");
+        }
+        LinkedHashMap<Item, Double> ranked = new LinkedHashMap<>();
+        if (mode == SearchMode.FULL_TEXT) {
+            Map<Long, Double> scores = new LinkedHashMap<>();
+            repository.searchFullTextRanked(text, page).forEach(view -> scores.put(view.getId(), view.getScore()));
+            findAllByIdsInOrder(new ArrayList<>(scores.keySet()))
+                    .forEach(item -> ranked.put(item, scores.get(item.getId())));
+        } else if (index.isReady()) {
+            Map<Long, Double> scores = index.searchRanked(text, page.getOffset(), page.getPageSize());
+            findAllByIdsInOrder(new ArrayList<>(scores.keySet()))
+                    .forEach(item -> ranked.put(item, scores.get(item.getId())));
+        } else {
+            // Индекс ещё строится: порядок остаётся прежним, а релевантность не заполняется
+            search(text, page).forEach(item -> ranked.put(item, null));
+        }
+        return ranked;
+    }
+
+    private List<Item> findAllByIdsInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Item> items = new HashMap<>();
+        repository.findAllById(ids).forEach(item -> items.put(item.getId(), item));
+        return ids.stream().map(items::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+}
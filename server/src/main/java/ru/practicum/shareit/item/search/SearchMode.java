@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item.search;
+
+/**
+ * Способ поиска вещей, задаётся shareit.search.mode.
+ * По умолчанию {@link #DATABASE}: like-запрос просматривает всю таблицу, зато одинаково работает на любом числе узлов.
+ * {@link #INDEX} включается явно и только при одном экземпляре сервера.
+ */
+public enum SearchMode {
+    // like-запрос к БД
+    DATABASE,
+    // триграммный индекс в памяти; видит только изменения своего узла, поэтому для одного экземпляра сервера
+    INDEX,
+    // полнотекстовый поиск и pg_trgm (только PostgreSQL)
+    FULL_TEXT
+}
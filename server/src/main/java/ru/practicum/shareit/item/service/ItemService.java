@@ -1,18 +1,31 @@
 package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemBookingCommentsDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.pagination.CursorPage;
 
+import java.time.LocalDate;
 import java.util.List;
 
 public interface ItemService {
     List<ItemBookingCommentsDto> findAllByUserId(long userId, int from, int size);
 
+    CursorPage<ItemBookingCommentsDto> findAllByUserIdAfter(long userId, String cursor, int size);
+
     ItemBookingCommentsDto findById(long userId, long itemId);
 
+    ItemAvailabilityDto findAvailability(long userId, long itemId, LocalDate from, LocalDate to);
+
     List<ItemDto> findByText(String text, int from, int size);
 
+    CursorPage<ItemDto> findByTextAfter(String text, String cursor, int size);
+
+    List<ItemDto> findByTextRanked(String text, int from, int size);
+
+    List<String> suggestNames(String prefix, int size);
+
     ItemDto add(long userId, ItemDto itemDto);
 
     ItemDto patch(long userId, long itemId, ItemDto itemDto);
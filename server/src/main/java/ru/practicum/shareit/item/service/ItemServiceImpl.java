@@ -2,31 +2,49 @@ package ru.practicum.shareit.item.service;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.archive.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.availability.BookingAvailability;
+import ru.practicum.shareit.booking.dates.ItemBookingDates;
+import ru.practicum.shareit.booking.dates.ItemBookingDatesRepository;
+import ru.practicum.shareit.booking.dto.BookingForItemsOutDto;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.error.exception.NotFoundException;
 import ru.practicum.shareit.error.exception.ValidationException;
+import ru.practicum.shareit.item.detail.ItemDetail;
+import ru.practicum.shareit.item.detail.ItemDetailCache;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemBookingCommentsDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.event.CommentAddedEvent;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.ItemSearcher;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserValidator;
 
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -36,60 +54,127 @@ import java.util.stream.Collectors;
 @AllArgsConstructor
 public class ItemServiceImpl implements ItemService {
     private static final Sort SORT = Sort.by(Sort.Direction.DESC, "created");
+    private static final Sort ID_SORT = Sort.by("id");
+    private static final ZoneId ZONE_ID = ZoneId.systemDefault();
 
     private final ItemRepository repository;
-    private final UserRepository userRepo;
+    private final UserValidator users;
     private final BookingRepository bookingRepo;
+    private final ArchivedBookingRepository archiveRepo;
+    private final ItemBookingDatesRepository bookingDatesRepo;
     private final CommentRepository commentRepo;
+    private final ItemSearcher searcher;
+    private final ItemSearchCache cache;
+    private final ItemDetailCache detailCache;
+    private final ItemNameSuggester suggester;
+    private final BookingAvailability availability;
+    private final ApplicationEventPublisher publisher;
 
     @Override
     public List<ItemBookingCommentsDto> findAllByUserId(long userId, int from, int size) {
-        userRepo.findById(userId)
-                .orElseThrow(() -> new NotFoundException(String.format("Пользователь с id %d не найден", userId)));
-        List<Item> items;
-        PageRequest page = PageRequest.of(from / size, size);
-        items = repository.findByOwnerId(userId, page).getContent();
+        users.checkExists(userId);
+        PageRequest page = PageRequest.of(from / size, size, ID_SORT);
+        List<Item> items = repository.findByOwnerId(userId, page).getContent();
+        return toItemBookingCommentsDtos(items);
+    }
 
-        if (items.isEmpty()) {
-            return Collections.emptyList();
-        }
-        Map<Long, ItemBookingCommentsDto> itemsWithIds = new HashMap<>();
-        items.forEach(item -> itemsWithIds.put(item.getId(), ItemMapper.toItemBookingCommentsDto(item)));
-        addCommentsToItems(itemsWithIds);
-        addBookingDatesToItems(itemsWithIds);
-        return new ArrayList<>(itemsWithIds.values());
+    @Override
+    public CursorPage<ItemBookingCommentsDto> findAllByUserIdAfter(long userId, String cursor, int size) {
+        users.checkExists(userId);
+        Cursor after = Cursor.decode(cursor);
+        long afterId = after == null ? 0 : after.getId();
+        List<Item> items = repository.findByOwnerIdAndIdGreaterThanOrderById(userId, afterId,
+                PageRequest.of(0, size + 1));
+        return CursorPage.of(items, size, item -> Cursor.of(item.getId()), this::toItemBookingCommentsDtos);
     }
 
     @Override
     public ItemBookingCommentsDto findById(long userId, long itemId) {
-        checkUser(userId);
-        Item item = repository.findById(itemId)
-                .orElseThrow(() -> new NotFoundException(String.format("Вещь с id %d не найдена", itemId)));
-        ItemBookingCommentsDto itemDto = ItemMapper.toItemBookingCommentsDto(item);
-        long ownerId = item.getOwner().getId();
-        if (ownerId == userId) {
+        users.checkExists(userId);
+        ItemDetail detail = detailCache.get(itemId, this::loadDetail);
+        ItemBookingCommentsDto itemDto = detail.getItem();
+        // Бронирования видит только владелец, поэтому они не кэшируются и добавляются к копии из кэша
+        if (detail.getOwnerId() == userId) {
             addBookingsToItem(itemDto);
         }
-        addCommentsToItem(itemDto);
         return itemDto;
     }
 
+    private ItemDetail loadDetail(long itemId) {
+        Item item = checkItem(itemId);
+        ItemBookingCommentsDto itemDto = ItemMapper.toItemBookingCommentsDto(item);
+        addCommentsToItem(itemDto);
+        return new ItemDetail(item.getOwner().getId(), itemDto);
+    }
+
+    @Override
+    public ItemAvailabilityDto findAvailability(long userId, long itemId, LocalDate from, LocalDate to) {
+        users.checkExists(userId);
+        checkItem(itemId);
+        BitSet booked = availability.bookedDays(itemId, from, to, ZONE_ID);
+        return ItemAvailabilityDto.builder()
+                .itemId(itemId)
+                .from(from)
+                .to(to)
+                .bookedDays(booked.stream().mapToObj(from::plusDays).collect(Collectors.toList()))
+                .build();
+    }
+
     @Override
     public List<ItemDto> findByText(String text, int from, int size) {
         if (text.isBlank()) {
             return Collections.emptyList();
         }
         PageRequest page = PageRequest.of(from / size, size);
-        List<Item> items = repository.searchWithPaging(text.toLowerCase(), page).getContent();
-        return items.stream().map(ItemMapper::toItemDto).collect(Collectors.toList());
+        String normalized = text.toLowerCase();
+        return cache.get(normalized, from, size, () -> searcher.search(normalized, page).stream()
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public CursorPage<ItemDto> findByTextAfter(String text, String cursor, int size) {
+        Cursor after = Cursor.decode(cursor);
+        if (text.isBlank()) {
+            return new CursorPage<>(Collections.emptyList(), null);
+        }
+        long afterId = after == null ? 0 : after.getId();
+        List<Item> items = searcher.searchAfter(text.toLowerCase(), afterId, size + 1);
+        return CursorPage.of(items, size, item -> Cursor.of(item.getId()), page -> page.stream()
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<ItemDto> findByTextRanked(String text, int from, int size) {
+        if (text.isBlank()) {
+            return Collections.emptyList();
+        }
+        PageRequest page = PageRequest.of(from / size, size);
+        List<ItemDto> itemDtos = new ArrayList<>();
+        searcher.searchRanked(text.toLowerCase(), page).forEach((item, score) -> {
+            ItemDto itemDto = ItemMapper.toItemDto(item);
+            itemDto.setScore(score);
+            itemDtos.add(itemDto);
+        });
+        return itemDtos;
+    }
+
+    @Override
+    public List<String> suggestNames(String prefix, int size) {
+        if (prefix.isBlank()) {
+            return Collections.emptyList();
+        }
+        return suggester.suggest(prefix, size);
     }
 
     @Transactional
     @Override
     public ItemDto add(long userId, ItemDto itemDto) {
-        User owner = checkUser(userId);
+        User owner = users.getReference(userId);
         Item item = ItemMapper.toItem(itemDto, owner);
         item = repository.save(item);
+        publisher.publishEvent(ItemChangedEvent.saved(item));
         return ItemMapper.toItemDto(item);
     }
 
@@ -97,6 +182,9 @@ public class ItemServiceImpl implements ItemService {
     @Override
     public ItemDto patch(long userId, long itemId, ItemDto itemDto) {
         Item item = checkOwner(userId, itemId);
+        String previousName = item.getName();
+        String previousDescription = item.getDescription();
+        boolean previouslyAvailable = item.isAvailable();
         String newName = itemDto.getName();
         String newDescription = itemDto.getDescription();
         Boolean newAvailable = itemDto.getAvailable();
@@ -111,33 +199,32 @@ public class ItemServiceImpl implements ItemService {
             item.setAvailable(newAvailable);
         }
         item = repository.save(item);
+        publisher.publishEvent(ItemChangedEvent.updated(item, previousName, previousDescription, previouslyAvailable));
         return ItemMapper.toItemDto(item);
     }
 
     @Transactional
     @Override
     public void delete(long userId, long itemId) {
-        checkOwner(userId, itemId);
+        Item item = checkOwner(userId, itemId);
         repository.deleteById(itemId);
+        publisher.publishEvent(ItemChangedEvent.deleted(item));
     }
 
     @Transactional
     @Override
     public CommentDto addComment(Long userId, long itemId, CommentDto commentDto) {
-        User author = checkUser(userId);
+        User author = users.getReference(userId);
         Item item = checkItem(itemId);
         checkBooker(userId, itemId);
         Comment comment = CommentMapper.toComment(commentDto);
         comment.setAuthor(author);
         comment.setItem(item);
         comment = commentRepo.save(comment);
+        publisher.publishEvent(new CommentAddedEvent(itemId));
         return CommentMapper.toCommentDto(comment);
     }
 
-    private User checkUser(Long userId) {
-        return userRepo.findById(userId)
-                .orElseThrow(() -> new NotFoundException(String.format("Пользователь с id %d не найден", userId)));
-    }
 
     private Item checkItem(Long itemId) {
         return repository.findById(itemId)
@@ -145,7 +232,7 @@ public class ItemServiceImpl implements ItemService {
     }
 
     private Item checkOwner(long userId, long itemId) {
-        checkUser(userId);
+        users.checkExists(userId);
         Item item = checkItem(itemId);
         long ownerId = item.getOwner().getId();
         if (ownerId != userId) {
@@ -159,7 +246,8 @@ public class ItemServiceImpl implements ItemService {
         Instant now = Instant.now();
         List<Booking> bookingsItemByUser = bookingRepo
                 .findByBookerIdAndItemIdAndStatusAndStartIsBefore(userId, itemId, Status.APPROVED, now);
-        if (bookingsItemByUser.isEmpty()) {
+        if (bookingsItemByUser.isEmpty()
+                && !archiveRepo.existsByBookerIdAndItemIdAndStatus(userId, itemId, Status.APPROVED)) {
             log.warn("Пользователь с id {} не арендовал вещь с id {} на момент времени {}", userId, itemId,
                     LocalDateTime.ofInstant(now, OffsetDateTime.now().getOffset()));
             throw new ValidationException(
@@ -173,50 +261,50 @@ public class ItemServiceImpl implements ItemService {
     }
 
     private void addBookingsToItem(ItemBookingCommentsDto itemDto) {
-        List<Booking> bookings = bookingRepo.findByItemIdAndStatusOrStatusOrderByStartAsc(itemDto.getId(),
-                Status.APPROVED, Status.WAITING);
-        if (bookings.isEmpty()) {
-            return;
-        }
-        addLastAndNextBookings(bookings, itemDto);
+        addLastAndNextBookings(Map.of(itemDto.getId(), itemDto));
     }
 
-    private void addBookingDatesToItems(Map<Long, ItemBookingCommentsDto> itemsWithId) {
-        Map<Long, List<Booking>> bookings = new HashMap<>();
-        List<Long> itemIds = new ArrayList<>(itemsWithId.keySet());
-
-        List<Booking> bookingsList = bookingRepo.findByItemIdInAndStatusOrStatusOrderByStartAsc(itemIds,
-                Status.APPROVED, Status.WAITING);
-
-        bookingsList.forEach(booking -> bookings.computeIfAbsent(booking.getItem().getId(),
-                key -> new ArrayList<>()).add(booking));
-
-        bookings.forEach((key, value) -> addLastAndNextBookings(value, itemsWithId.get(key)));
+    private List<ItemBookingCommentsDto> toItemBookingCommentsDtos(List<Item> items) {
+        if (items.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, ItemBookingCommentsDto> itemsWithIds = new LinkedHashMap<>();
+        items.forEach(item -> itemsWithIds.put(item.getId(), ItemMapper.toItemBookingCommentsDto(item)));
+        addCommentsToItems(itemsWithIds);
+        addLastAndNextBookings(itemsWithIds);
+        return new ArrayList<>(itemsWithIds.values());
     }
 
-    private void addLastAndNextBookings(List<Booking> bookings, ItemBookingCommentsDto itemDto) {
-        Booking lastBooking;
-        Booking nextBooking = null;
+    private void addLastAndNextBookings(Map<Long, ItemBookingCommentsDto> itemsWithId) {
         Instant now = Instant.now();
-
-        if (bookings.get(0).getStart().isAfter(now)) {
-            itemDto.setNextBooking(BookingMapper.toBookingForItemsOutDto(bookings.get(0)));
-            return;
-        } else {
-            lastBooking = bookings.get(0);
-        }
-
-        for (int i = 1; i < bookings.size(); i++) {
-            if (bookings.get(i).getStart().isAfter(now)) {
-                lastBooking = bookings.get(i - 1);
-                nextBooking = bookings.get(i);
-                break;
+        Set<Long> notCalculated = new HashSet<>(itemsWithId.keySet());
+        for (ItemBookingDates dates : bookingDatesRepo.findByItemIdIn(itemsWithId.keySet())) {
+            Booking nextBooking = dates.getNextBooking();
+            // Ближайшее бронирование уже началось, а планировщик ещё не перенёс его в последние
+            if (nextBooking != null && !nextBooking.getStart().isAfter(now)) {
+                continue;
+            }
+            notCalculated.remove(dates.getItemId());
+            ItemBookingCommentsDto itemDto = itemsWithId.get(dates.getItemId());
+            if (dates.getLastBooking() != null) {
+                itemDto.setLastBooking(BookingMapper.toBookingForItemsOutDto(dates.getLastBooking()));
+            }
+            if (nextBooking != null) {
+                itemDto.setNextBooking(BookingMapper.toBookingForItemsOutDto(nextBooking));
             }
         }
-        itemDto.setLastBooking(BookingMapper.toBookingForItemsOutDto(lastBooking));
-        if (nextBooking != null) {
-            itemDto.setNextBooking(BookingMapper.toBookingForItemsOutDto(nextBooking));
+        if (notCalculated.isEmpty()) {
+            return;
         }
+        bookingRepo.findLastAndNextByItemIdIn(notCalculated, now).forEach(booking -> {
+            ItemBookingCommentsDto itemDto = itemsWithId.get(booking.getItem().getId());
+            BookingForItemsOutDto bookingDto = BookingMapper.toBookingForItemsOutDto(booking);
+            if (booking.getStart().isAfter(now)) {
+                itemDto.setNextBooking(bookingDto);
+            } else {
+                itemDto.setLastBooking(bookingDto);
+            }
+        });
     }
 
     private void addCommentsToItems(Map<Long, ItemBookingCommentsDto> itemsWithId) {
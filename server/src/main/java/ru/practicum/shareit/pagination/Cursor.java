@@ -0,0 +1,64 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.Value;
+import ru.practicum.shareit.error.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Позиция последнего элемента страницы: значение ключа сортировки и id.
+ * Следующая страница ищется по индексу от этой позиции, а не пропуском offset строк.
+ * Для клиента курсор — непрозрачная строка.
+ */
+@Value
+public class Cursor {
+    private static final String SEPARATOR = ",";
+
+    Instant key;
+    long id;
+
+    public static Cursor of(long id) {
+        return new Cursor(null, id);
+    }
+
+    public static Cursor of(Instant key, long id) {
+        return new Cursor(key, id);
+    }
+
+    /**
+     * Пустая строка означает первую страницу, для неё возвращается null.
+     */
+    public static Cursor decode(String cursor) {
+        if (cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return of(Long.parseLong(value));
+            }
+            return of(Instant.parse(value.substring(0, separator)), Long.parseLong(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new ValidationException(String.format("Некорректный курсор %s", cursor));
+        }
+    }
+
+    /**
+     * Курсор списка, отсортированного по ключу и id: курсор из одного id здесь некорректен.
+     */
+    public static Cursor decodeKeyed(String cursor) {
+        Cursor decoded = decode(cursor);
+        if (decoded != null && decoded.key == null) {
+            throw new ValidationException(String.format("Некорректный курсор %s", cursor));
+        }
+        return decoded;
+    }
+
+    public String encode() {
+        String value = key == null ? String.valueOf(id) : key + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,50 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница и курсор следующей страницы. Курсор есть, только если за страницей есть ещё хотя бы одна строка.
+ */
+@Value
+public class CursorPage<T> {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    List<T> content;
+    String nextCursor;
+
+    /**
+     * entities выбираются с запасом в одну строку: size + 1 строк означает, что следующая страница есть.
+     */
+    public static <E, T> CursorPage<T> of(List<E> entities, int size, Function<E, Cursor> cursor,
+                                          Function<List<E>, List<T>> mapper) {
+        boolean hasNext = entities.size() > size;
+        return of(hasNext ? entities.subList(0, size) : entities, hasNext, cursor, mapper);
+    }
+
+    public static <E, T> CursorPage<T> of(Slice<E> slice, Function<E, Cursor> cursor,
+                                          Function<List<E>, List<T>> mapper) {
+        return of(slice.getContent(), slice.hasNext(), cursor, mapper);
+    }
+
+    private static <E, T> CursorPage<T> of(List<E> content, boolean hasNext, Function<E, Cursor> cursor,
+                                           Function<List<E>, List<T>> mapper) {
+        String next = null;
+        if (hasNext && !content.isEmpty()) {
+            next = cursor.apply(content.get(content.size() - 1)).encode();
+        }
+        return new CursorPage<>(mapper.apply(content), next);
+    }
+
+    public ResponseEntity<List<T>> toResponse() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(content);
+    }
+}
@@ -2,6 +2,7 @@ package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestNewDto;
@@ -30,11 +31,15 @@ public class ItemRequestController {
     }
 
     @GetMapping("/all")
-    public List<ItemRequestDto> findAll(
+    public ResponseEntity<List<ItemRequestDto>> findAll(
             @RequestHeader("X-Sharer-User-Id") long userId,
             @RequestParam int from,
-            @RequestParam int size) {
-        return service.findAll(userId, from, size);
+            @RequestParam int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return service.findAllAfter(userId, cursor, size).toResponse();
+        }
+        return ResponseEntity.ok(service.findAll(userId, from, size));
     }
 
     @GetMapping("/{requestId}")
@@ -1,20 +1,33 @@
 package ru.practicum.shareit.request.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.request.ItemRequest;
 
+import java.time.Instant;
 import java.util.List;
 
 @Repository
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long>,
         CrudRepository<ItemRequest, Long>,
         PagingAndSortingRepository<ItemRequest, Long> {
-    List<ItemRequest> findByRequestorId(long requestorId);
+    // Условие по внешнему ключу: производный запрос присоединяет users и фильтрует по users.id
+    @Query("select r from ItemRequest r where r.requestor.id = :requestorId")
+    List<ItemRequest> findByRequestorId(@Param("requestorId") long requestorId);
 
-    Page<ItemRequest> findByRequestorIdNot(long requestorId, Pageable page);
+    Slice<ItemRequest> findByRequestorIdNot(long requestorId, Pageable page);
+
+    @Query("select r from ItemRequest r where r.requestor.id <> :requestorId " +
+            "and (r.created < :afterCreated or r.created = :afterCreated and r.id < :afterId) " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequest> findByRequestorIdNotAfter(@Param("requestorId") long requestorId,
+                                                @Param("afterCreated") Instant afterCreated,
+                                                @Param("afterId") long afterId,
+                                                Pageable page);
 }
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.request.service;
 
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestNewDto;
 
@@ -12,5 +13,7 @@ public interface ItemRequestService {
 
     List<ItemRequestDto> findAll(long userId, int from, int size);
 
+    CursorPage<ItemRequestDto> findAllAfter(long userId, String cursor, int size);
+
     ItemRequestDto findById(long userId, long requestId);
 }
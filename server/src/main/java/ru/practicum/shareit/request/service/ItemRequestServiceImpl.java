@@ -10,18 +10,21 @@ import ru.practicum.shareit.error.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.ItemRequestMapper;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestNewDto;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserValidator;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,16 +32,16 @@ import java.util.stream.Collectors;
 @Slf4j
 @AllArgsConstructor
 public class ItemRequestServiceImpl implements ItemRequestService {
-    private static final Sort SORT = Sort.by(Sort.Direction.DESC, "created");
+    private static final Sort SORT = Sort.by(Sort.Direction.DESC, "created", "id");
 
     private final ItemRequestRepository repository;
-    private final UserRepository userRepo;
+    private final UserValidator users;
     private final ItemRepository itemRepo;
 
     @Override
     @Transactional
     public ItemRequestNewDto add(Long userId, ItemRequestNewDto itemRequestNewDto) {
-        User requestor = checkUser(userId);
+        User requestor = users.getReference(userId);
         ItemRequest itemRequest = ItemRequestMapper.toItemRequest(itemRequestNewDto);
         itemRequest.setRequestor(requestor);
         itemRequest = repository.save(itemRequest);
@@ -47,7 +50,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
 
     @Override
     public List<ItemRequestDto> findAllByUserId(Long userId) {
-        checkUser(userId);
+        users.checkExists(userId);
         List<ItemRequestDto> itemRequestDtos = repository.findByRequestorId(userId).stream()
                 .map(ItemRequestMapper::toItemRequestDto).collect(Collectors.toList());
         addItemsToRequests(itemRequestDtos);
@@ -56,7 +59,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
 
     @Override
     public List<ItemRequestDto> findAll(long userId, int from, int size) {
-        checkUser(userId);
+        users.checkExists(userId);
         PageRequest page = PageRequest.of(from / size, size, SORT);
         List<ItemRequestDto> itemRequestDtos = repository.findByRequestorIdNot(userId, page)
                 .map(ItemRequestMapper::toItemRequestDto).getContent();
@@ -64,9 +67,30 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         return itemRequestDtos;
     }
 
+    @Override
+    public CursorPage<ItemRequestDto> findAllAfter(long userId, String cursor, int size) {
+        users.checkExists(userId);
+        Cursor after = Cursor.decodeKeyed(cursor);
+        Function<ItemRequest, Cursor> position = request -> Cursor.of(request.getCreated(), request.getId());
+        if (after == null) {
+            return CursorPage.of(repository.findByRequestorIdNot(userId, PageRequest.of(0, size, SORT)), position,
+                    this::toItemRequestDtos);
+        }
+        List<ItemRequest> requests = repository.findByRequestorIdNotAfter(userId, after.getKey(), after.getId(),
+                PageRequest.of(0, size + 1));
+        return CursorPage.of(requests, size, position, this::toItemRequestDtos);
+    }
+
+    private List<ItemRequestDto> toItemRequestDtos(List<ItemRequest> requests) {
+        List<ItemRequestDto> itemRequestDtos = requests.stream()
+                .map(ItemRequestMapper::toItemRequestDto).collect(Collectors.toList());
+        addItemsToRequests(itemRequestDtos);
+        return itemRequestDtos;
+    }
+
     @Override
     public ItemRequestDto findById(long userId, long requestId) {
-        checkUser(userId);
+        users.checkExists(userId);
         ItemRequest itemRequest = repository.findById(requestId)
                 .orElseThrow(() -> new NotFoundException(String.format("Запрос с id %d не найден", requestId)));
         ItemRequestDto requestDto = ItemRequestMapper.toItemRequestDto(itemRequest);
@@ -76,10 +100,6 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         return requestDto;
     }
 
-    private User checkUser(Long userId) {
-        return userRepo.findById(userId)
-                .orElseThrow(() -> new NotFoundException(String.format("Пользователь с id %d не найден", userId)));
-    }
 
     private void addItemsToRequests(List<ItemRequestDto> itemRequestDtos) {
         List<Long> requestIds = itemRequestDtos.stream().map(ItemRequestDto::getId).collect(Collectors.toList());
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.user.repository;
+
+import ru.practicum.shareit.user.model.User;
+
+import java.util.Optional;
+
+public interface UserEmailRepository {
+
+    /**
+     * Пользователь по email как по натуральному ключу: при включённом кэше второго уровня поиск не идёт в базу.
+     */
+    Optional<User> findByEmail(String email);
+}
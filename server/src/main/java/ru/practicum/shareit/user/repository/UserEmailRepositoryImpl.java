@@ -0,0 +1,20 @@
+package ru.practicum.shareit.user.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class UserEmailRepositoryImpl implements UserEmailRepository {
+    private final EntityManager em;
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return em.unwrap(Session.class).bySimpleNaturalId(User.class).loadOptional(email);
+    }
+}
@@ -2,12 +2,15 @@ package ru.practicum.shareit.user.service;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.error.exception.EmailExistException;
 import ru.practicum.shareit.error.exception.NotFoundException;
 import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.event.UserAddedEvent;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
@@ -19,6 +22,7 @@ import java.util.List;
 @AllArgsConstructor
 public class UserServiceImpl implements UserService {
     private final UserRepository repository;
+    private final ApplicationEventPublisher publisher;
 
     @Override
     public List<UserDto> findAll() {
@@ -48,6 +52,7 @@ public class UserServiceImpl implements UserService {
             }
             throw new RuntimeException("Ошибка при передаче данных в БД");
         }
+        publisher.publishEvent(new UserAddedEvent(userAdded.getId()));
         return UserMapper.toUserDto(userAdded);
     }
 
@@ -62,6 +67,9 @@ public class UserServiceImpl implements UserService {
             user.setName(newName);
         }
         if (newEmail != null) {
+            if (repository.findByEmail(newEmail).filter(other -> other.getId() != id).isPresent()) {
+                throw new EmailExistException(String.format("Пользователь с email %s уже существует", newEmail));
+            }
             user.setEmail(newEmail);
         }
         user = repository.save(user);
@@ -71,5 +79,6 @@ public class UserServiceImpl implements UserService {
     @Override
     public void delete(long id) {
         repository.deleteById(id);
+        publisher.publishEvent(new UserDeletedEvent(id));
     }
 }
\ No newline at end of file
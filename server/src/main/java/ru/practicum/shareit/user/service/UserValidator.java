@@ -0,0 +1,157 @@
+package ru.practicum.shareit.user.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.datasource.PrimaryReads;
+import ru.practicum.shareit.error.exception.NotFoundException;
+import ru.practicum.shareit.user.event.UserAddedEvent;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Проверка существования пользователя без загрузки сущности. Результат проверки, в том числе отсутствие
+ * пользователя, запоминается на время shareit.user.existence.ttl-ms. Добавление и удаление пользователя
+ * обновляют запись сразу после коммита, срок жизни нужен для изменений, сделанных другими экземплярами сервера.
+ */
+@Component
+@Slf4j
+public class UserValidator {
+    private static final String NAME = "users.existence";
+
+    private final UserRepository repository;
+    private final PrimaryReads primaryReads;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+    private final Map<Long, Known> known;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    @Autowired
+    public UserValidator(UserRepository repository,
+                         PrimaryReads primaryReads,
+                         MeterRegistry registry,
+                         @Value("${shareit.user.existence.size:10000}") int maxSize,
+                         @Value("${shareit.user.existence.ttl-ms:60000}") long ttlMs) {
+        this(repository, primaryReads, registry, maxSize, Duration.ofMillis(ttlMs), System::nanoTime);
+    }
+
+    UserValidator(UserRepository repository, PrimaryReads primaryReads, MeterRegistry registry, int maxSize,
+                  Duration ttl, LongSupplier nanoTime) {
+        this.repository = repository;
+        this.primaryReads = primaryReads;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoTime = nanoTime;
+        this.known = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Known> eldest) {
+                if (size() > UserValidator.this.maxSize) {
+                    UserValidator.this.evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.hits = Counter.builder("cache.gets").tag("cache", NAME).tag("result", "hit").register(registry);
+        this.misses = Counter.builder("cache.gets").tag("cache", NAME).tag("result", "miss").register(registry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", NAME).register(registry);
+        Gauge.builder("cache.size", this, UserValidator::userCount).tag("cache", NAME).register(registry);
+    }
+
+    public void checkExists(long userId) {
+        if (!exists(userId)) {
+            log.warn("Пользователь с id {} не найден", userId);
+            throw new NotFoundException(String.format("Пользователь с id %d не найден", userId));
+        }
+    }
+
+    /**
+     * Ссылка на существующего пользователя для внешнего ключа. Сущность загрузится, только если
+     * обратиться к её полям кроме id.
+     */
+    public User getReference(long userId) {
+        checkExists(userId);
+        return repository.getReferenceById(userId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserAdded(UserAddedEvent event) {
+        remember(event.getUserId(), true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        remember(event.getUserId(), false);
+    }
+
+    public synchronized int userCount() {
+        return known.size();
+    }
+
+    private boolean exists(long userId) {
+        Known cached;
+        synchronized (this) {
+            cached = known.get(userId);
+            if (cached != null && cached.deadline - nanoTime.getAsLong() > 0) {
+                hits.increment();
+                return cached.exists;
+            }
+        }
+        misses.increment();
+        // Отстающая реплика не нашла бы только что созданного пользователя, и отказ запомнился бы на весь срок
+        boolean exists = primaryReads.read(() -> repository.existsById(userId));
+        Known loaded = new Known(exists, nanoTime.getAsLong() + ttlNanos);
+        synchronized (this) {
+            evictExpiredIfFull();
+            // Запись, сделанная после добавления или удаления во время запроса к базе, новее прочитанного
+            known.compute(userId, (id, current) -> current == null || current == cached ? loaded : current);
+        }
+        return exists;
+    }
+
+    private synchronized void remember(long userId, boolean exists) {
+        evictExpiredIfFull();
+        known.put(userId, new Known(exists, nanoTime.getAsLong() + ttlNanos));
+    }
+
+    // Сначала освобождается место от просроченных записей, и только потом removeEldestEntry вытесняет
+    // давно не запрошенные
+    private void evictExpiredIfFull() {
+        if (known.size() < maxSize) {
+            return;
+        }
+        long now = nanoTime.getAsLong();
+        Iterator<Known> iterator = known.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().deadline - now <= 0) {
+                iterator.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private static final class Known {
+        private final boolean exists;
+        private final long deadline;
+
+        private Known(boolean exists, long deadline) {
+            this.exists = exists;
+            this.deadline = deadline;
+        }
+    }
+}
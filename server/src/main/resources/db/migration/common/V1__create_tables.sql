@@ -0,0 +1,65 @@
+CREATE TABLE IF NOT EXISTS users
+(
+    id    BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    name  VARCHAR(255) NOT NULL,
+    email VARCHAR(512) NOT NULL,
+    CONSTRAINT UQ_USER_EMAIL UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS requests
+(
+    id           BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    description  VARCHAR(512) NOT NULL,
+    requestor_id BIGINT       NOT NULL,
+    created      TIMESTAMP WITHOUT TIME ZONE DEFAULT NOW(),
+    CONSTRAINT fk_requests_to_users FOREIGN KEY (requestor_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS items
+(
+    id          BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    name        VARCHAR(255) NOT NULL,
+    description VARCHAR(512) NOT NULL,
+    owner_id    BIGINT       NOT NULL,
+    available   BOOLEAN      NOT NULL,
+    request_id  BIGINT,
+    CONSTRAINT fk_items_to_users FOREIGN KEY (owner_id) REFERENCES users (id) ON DELETE CASCADE,
+    CONSTRAINT fk_items_to_requests FOREIGN KEY (request_id) REFERENCES requests (id)
+);
+
+CREATE TABLE IF NOT EXISTS bookings
+(
+    id         BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    item_id    BIGINT                      NOT NULL,
+    booker_id  BIGINT                      NOT NULL,
+    status     VARCHAR(8)                  NOT NULL,
+    CONSTRAINT fk_bookings_to_items FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE,
+    CONSTRAINT fk_bookings_to_users FOREIGN KEY (booker_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS comments
+(
+    id        BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    text      VARCHAR(512) NOT NULL,
+    item_id   BIGINT       NOT NULL,
+    author_id BIGINT       NOT NULL,
+    created   TIMESTAMP WITHOUT TIME ZONE DEFAULT NOW(),
+    CONSTRAINT fk_comments_to_items FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE,
+    CONSTRAINT fk_comments_to_users FOREIGN KEY (author_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS item_booking_dates
+(
+    item_id         BIGINT PRIMARY KEY,
+    last_booking_id BIGINT,
+    next_booking_id BIGINT,
+    CONSTRAINT fk_item_booking_dates_to_items FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE,
+    CONSTRAINT fk_item_booking_dates_to_last FOREIGN KEY (last_booking_id) REFERENCES bookings (id) ON DELETE CASCADE,
+    CONSTRAINT fk_item_booking_dates_to_next FOREIGN KEY (next_booking_id) REFERENCES bookings (id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS ix_item_booking_dates_last ON item_booking_dates (last_booking_id);
+
+CREATE INDEX IF NOT EXISTS ix_item_booking_dates_next ON item_booking_dates (next_booking_id);
@@ -0,0 +1,2 @@
+-- Списки арендатора по статусу: условие и сортировка по одному индексу, в том числе при переходе по курсору
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_status_start ON bookings (booker_id, status, start_date DESC, id DESC);
@@ -0,0 +1,18 @@
+-- Давно завершённые бронирования. Ограничения пересечения здесь нет: архивные бронирования не меняются
+CREATE TABLE IF NOT EXISTS bookings_archive
+(
+    id         BIGINT PRIMARY KEY,
+    start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    item_id    BIGINT                      NOT NULL,
+    booker_id  BIGINT                      NOT NULL,
+    status     VARCHAR(8)                  NOT NULL,
+    CONSTRAINT fk_bookings_archive_to_items FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE,
+    CONSTRAINT fk_bookings_archive_to_users FOREIGN KEY (booker_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS ix_bookings_archive_booker_start ON bookings_archive (booker_id, start_date DESC);
+
+CREATE INDEX IF NOT EXISTS ix_bookings_archive_item_start ON bookings_archive (item_id, start_date);
+
+CREATE INDEX IF NOT EXISTS ix_bookings_end ON bookings (end_date);
@@ -0,0 +1,28 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE items
+    ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+            setweight(to_tsvector('russian', name), 'A') || setweight(to_tsvector('russian', description), 'B')
+        ) STORED;
+
+CREATE INDEX IF NOT EXISTS ix_items_search_vector ON items USING GIN (search_vector) WHERE available;
+
+CREATE INDEX IF NOT EXISTS ix_items_name_trgm ON items USING GIN (lower(name) gin_trgm_ops) WHERE available;
+
+CREATE INDEX IF NOT EXISTS ix_items_description_trgm ON items USING GIN (lower(description) gin_trgm_ops) WHERE available;
+
+-- Подтверждённые бронирования одной вещи не пересекаются и при нескольких экземплярах сервера
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- ADD CONSTRAINT без IF NOT EXISTS: ограничение могло остаться от schema-postgresql.sql
+DO
+$$
+    BEGIN
+        IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'ex_bookings_approved_overlap') THEN
+            ALTER TABLE bookings
+                ADD CONSTRAINT ex_bookings_approved_overlap EXCLUDE USING GIST (
+                    item_id WITH =, tsrange(start_date, end_date, '[]') WITH &&
+                    ) WHERE (status = 'APPROVED');
+        END IF;
+    END
+$$;
@@ -0,0 +1,6 @@
+-- Ожидающих подтверждения бронирований немного, поэтому отдельные частичные индексы для состояния WAITING
+CREATE INDEX IF NOT EXISTS ix_bookings_waiting_booker_start ON bookings (booker_id, start_date DESC)
+    WHERE status = 'WAITING';
+
+CREATE INDEX IF NOT EXISTS ix_bookings_waiting_item_start ON bookings (item_id, start_date DESC)
+    WHERE status = 'WAITING';
@@ -0,0 +1,7 @@
+-- Периоды бронирований как tsrange: текущие бронирования и пересечения ищутся оператором &&
+-- (функция periods_overlap), а не двумя независимыми сравнениями по B-tree
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_period ON bookings
+    USING GIST (booker_id, tsrange(start_date, end_date, '[]'));
+
+CREATE INDEX IF NOT EXISTS ix_bookings_item_period ON bookings
+    USING GIST (item_id, tsrange(start_date, end_date, '[]'));
@@ -0,0 +1,58 @@
+package ru.practicum.shareit;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.ConfigDataApplicationContextInitializer;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * База, созданная старым schema.sql через spring.sql.init, доводится миграциями до полной схемы
+ * с настройками Flyway из application.properties.
+ */
+class LegacySchemaMigrationTest {
+    private static final String URL = "jdbc:h2:mem:legacy;DB_CLOSE_DELAY=-1";
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withInitializer(new ConfigDataApplicationContextInitializer())
+            .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class,
+                    FlywayAutoConfiguration.class))
+            .withPropertyValues(
+                    "spring.datasource.driverClassName=org.h2.Driver",
+                    "spring.datasource.url=" + URL,
+                    "spring.datasource.username=test",
+                    "spring.datasource.password=test");
+
+    @Test
+    void migrateDatabaseCreatedBySchemaSql() {
+        DriverManagerDataSource legacy = new DriverManagerDataSource(URL, "test", "test");
+        new ResourceDatabasePopulator(new ClassPathResource("db/legacy/schema.sql")).execute(legacy);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(legacy);
+        jdbcTemplate.update("insert into users (name, email) values ('name', 'e@mail.ru')");
+
+        runner.run(context -> {
+            List<String> applied = Stream.of(context.getBean(Flyway.class).info().applied())
+                    .filter(migration -> migration.getVersion() != null)
+                    .map(migration -> migration.getVersion().getVersion())
+                    .collect(Collectors.toList());
+            assertTrue(applied.containsAll(List.of("0", "1", "9")), applied.toString());
+
+            assertEquals(1, jdbcTemplate.queryForObject("select count(*) from users", Integer.class));
+            assertEquals(0, jdbcTemplate.queryForObject("select count(*) from item_booking_dates", Integer.class));
+            assertEquals(0, jdbcTemplate.queryForObject("select count(*) from bookings_archive", Integer.class));
+        });
+    }
+}
@@ -0,0 +1,138 @@
+package ru.practicum.shareit;
+
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.enums.BookingRole;
+import ru.practicum.shareit.booking.enums.State;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingSpecifications;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Каждый поиск по владельцу, арендатору, вещи или автору запроса должен идти по индексу, а не перебором таблицы.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ru.practicum.shareit.QueryPlanTest$SqlRecorder")
+class QueryPlanTest {
+    private static final PageRequest BOOKING_PAGE = PageRequest.of(0, 10,
+            Sort.by(Sort.Direction.DESC, "start", "id"));
+    private static final Sort COMMENT_SORT = Sort.by(Sort.Direction.DESC, "created");
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private ItemRepository itemRepo;
+
+    @Autowired
+    private CommentRepository commentRepo;
+
+    @Autowired
+    private ItemRequestRepository requestRepo;
+
+    @Test
+    void bookingFindersUseIndexes() {
+        Instant now = Instant.now();
+        for (BookingRole role : BookingRole.values()) {
+            for (State state : EnumSet.complementOf(EnumSet.of(State.UNKNOWN))) {
+                Specification<Booking> spec = BookingSpecifications.of(role, 1L, state, now);
+                assertUsesIndex(() -> bookingRepo.findSlice(spec, BOOKING_PAGE));
+                assertUsesIndex(() -> bookingRepo.findSlice(spec.and(BookingSpecifications.before(now, 1L)),
+                        BOOKING_PAGE));
+                if (BookingSpecifications.includesArchive(state)) {
+                    assertUsesIndex(() -> bookingRepo.findSliceWithArchive(role, 1L, state, now, null,
+                            BOOKING_PAGE));
+                    assertUsesIndex(() -> bookingRepo.findSliceWithArchive(role, 1L, state, now,
+                            Cursor.of(now, 1L), BOOKING_PAGE));
+                }
+            }
+        }
+        assertUsesIndex(() -> bookingRepo.findByItemIdAndStatus(1L, Status.APPROVED));
+        assertUsesIndex(() -> bookingRepo.findBookingsAtSameTime(1L, Status.APPROVED, now, now));
+        assertUsesIndex(() -> bookingRepo.findByItemIdInAndStatusOverlapping(List.of(1L, 2L), Status.APPROVED, now,
+                now));
+        assertUsesIndex(() -> bookingRepo.findByBookerIdAndItemIdAndStatusAndStartIsBefore(1L, 1L,
+                Status.APPROVED, now));
+        assertUsesIndex(() -> bookingRepo.findLastAndNextByItemIdIn(List.of(1L, 2L), now));
+        assertUsesIndex(() -> bookingRepo.findByStatusAndStartBefore(Status.WAITING, now, PageRequest.of(0, 10)));
+        assertUsesIndex(() -> bookingRepo.findByIdInAndStatus(List.of(1L, 2L), Status.WAITING));
+        assertUsesIndex(() -> bookingRepo.findWithItemAndBookerByIdIn(List.of(1L, 2L)));
+        assertUsesIndex(() -> bookingRepo.findArchivable(Status.WAITING, now, PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void itemCommentAndRequestFindersUseIndexes() {
+        assertUsesIndex(() -> itemRepo.findByOwnerId(1L, PageRequest.of(0, 10, Sort.by("id"))));
+        assertUsesIndex(() -> itemRepo.findByOwnerIdAndIdGreaterThanOrderById(1L, 0L, PageRequest.of(0, 10)));
+        assertUsesIndex(() -> commentRepo.findAllByItemId(1L, COMMENT_SORT));
+        assertUsesIndex(() -> commentRepo.findAllByItemIdIn(List.of(1L, 2L), COMMENT_SORT));
+        assertUsesIndex(() -> requestRepo.findByRequestorId(1L));
+    }
+
+    private final List<String> failures = new ArrayList<>();
+
+    @AfterEach
+    void check() {
+        assertTrue(failures.isEmpty(), () -> String.join("\n\n", failures));
+    }
+
+    private void assertUsesIndex(Runnable finder) {
+        SqlRecorder.SQL.clear();
+        finder.run();
+        String sql = SqlRecorder.SQL.get(SqlRecorder.SQL.size() - 1);
+        String plan = explain(sql);
+        if (plan.contains("tableScan")) {
+            failures.add("Перебор таблицы в плане запроса:\n" + sql + "\n" + plan);
+        }
+    }
+
+    private String explain(String sql) {
+        return em.getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                int count = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= count; i++) {
+                    statement.setObject(i, null);
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    return rs.getString(1);
+                }
+            }
+        });
+    }
+
+    public static class SqlRecorder implements StatementInspector {
+        private static final List<String> SQL = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            SQL.add(sql);
+            return sql;
+        }
+    }
+}
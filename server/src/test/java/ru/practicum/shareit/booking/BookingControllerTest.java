@@ -8,6 +8,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingInDto;
 import ru.practicum.shareit.booking.dto.BookingOutDto;
 import ru.practicum.shareit.booking.enums.State;
@@ -15,6 +16,7 @@ import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.error.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.time.LocalDateTime;
@@ -26,6 +28,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -129,6 +132,36 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$[0].status", is(bookingOutDto.getStatus().toString()), String.class));
     }
 
+    @Test
+    void shouldFindByStateAfterCursor() throws Exception {
+        bookingOutDto = builderOut.build();
+        when(service.findByStateAfter(1L, State.ALL, "", 1))
+                .thenReturn(new CursorPage<>(List.of(bookingOutDto), "next"));
+        mvc.perform(get(URL)
+                        .header("X-Sharer-User-Id", 1)
+                        .param("state", "all")
+                        .param("from", "0")
+                        .param("size", "1")
+                        .param("cursor", ""))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        when(service.findByOwnerItemsAndStateAfter(1L, State.ALL, "next", 1))
+                .thenReturn(new CursorPage<>(Collections.emptyList(), null));
+        mvc.perform(get(URL + "/owner")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("state", "all")
+                        .param("from", "0")
+                        .param("size", "1")
+                        .param("cursor", "next"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CursorPage.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
     @Test
     void shouldFindByOwnerItemsAndState() throws Exception {
         //Empty List
@@ -207,6 +240,42 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$.error", is(error), String.class));
     }
 
+    @Test
+    void shouldAddAll() throws Exception {
+        List<BookingInDto> bookingInDtos = List.of(builderIn.build(), builderIn.itemId(2L).build());
+        bookingOutDto = builderOut.build();
+        String json = mapper.writeValueAsString(bookingInDtos);
+
+        //All Created
+        when(service.addAll(1L, bookingInDtos, true)).thenReturn(List.of(
+                BookingBatchResultDto.builder().booking(bookingOutDto).build(),
+                BookingBatchResultDto.builder().booking(bookingOutDto).build()));
+        mvc.perform(post(URL + "/batch")
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].booking.id", is(bookingOutDto.getId()), Long.class))
+                .andExpect(jsonPath("$[0].error").doesNotExist());
+
+        //Partially Created
+        String error = "Время для аренды недоступно";
+        when(service.addAll(1L, bookingInDtos, false)).thenReturn(List.of(
+                BookingBatchResultDto.builder().booking(bookingOutDto).build(),
+                BookingBatchResultDto.builder().error(error).build()));
+        mvc.perform(post(URL + "/batch")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("atomic", "false")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].booking").doesNotExist())
+                .andExpect(jsonPath("$[1].error", is(error)));
+    }
+
     @Test
     void shouldPatch() throws Exception {
         //Regular Case True
@@ -239,4 +308,18 @@ class BookingControllerTest {
                         bookingOutDto.getStart().getSecond())), String.class))
                 .andExpect(jsonPath("$.status", is(bookingOutDto.getStatus().toString()), String.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldPatchAll() throws Exception {
+        bookingOutDto = builderOut.status(Status.APPROVED).build();
+        when(service.patchAll(1L, List.of(1L, 2L), true)).thenReturn(List.of(bookingOutDto));
+        mvc.perform(patch(URL)
+                        .header("X-Sharer-User-Id", 1)
+                        .param("ids", "1,2")
+                        .param("approved", "true"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(bookingOutDto.getId()), Long.class))
+                .andExpect(jsonPath("$[0].status", is(bookingOutDto.getStatus().toString()), String.class));
+    }
+}
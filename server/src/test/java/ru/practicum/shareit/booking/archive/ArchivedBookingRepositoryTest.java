@@ -0,0 +1,103 @@
+package ru.practicum.shareit.booking.archive;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.dates.ItemBookingDates;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+class ArchivedBookingRepositoryTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private ArchivedBookingRepository repository;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setup() {
+        User owner = new User();
+        owner.setName("name");
+        owner.setEmail("e@mail.ru");
+        owner = em.persist(owner);
+
+        booker = new User();
+        booker.setName("name1");
+        booker.setEmail("e1@mail.ru");
+        booker = em.persist(booker);
+
+        item = new Item();
+        item.setName("Набор отверток");
+        item.setDescription("Большой набор отверток");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        item = em.persist(item);
+    }
+
+    @Test
+    void moveToArchive() {
+        Instant start = Instant.now().truncatedTo(ChronoUnit.SECONDS).minusSeconds(3600 * 24 * 365);
+        Booking old = makeBooking(start, Status.APPROVED);
+        Booking last = makeBooking(start.plusSeconds(3600), Status.APPROVED);
+        ItemBookingDates dates = new ItemBookingDates();
+        dates.setItemId(item.getId());
+        dates.setLastBooking(last);
+        em.persist(dates);
+        em.flush();
+
+        List<Long> ids = bookingRepo.findUnreferencedIds(List.of(old.getId(), last.getId()));
+        assertEquals(List.of(old.getId()), ids);
+        assertEquals(1, repository.copyFromBookings(ids));
+        assertEquals(1, bookingRepo.deleteByIds(ids));
+        em.clear();
+
+        // Последнее бронирование вещи остаётся в bookings вместе со строкой дат
+        assertNull(em.find(Booking.class, old.getId()));
+        assertNotNull(em.find(Booking.class, last.getId()));
+        assertNotNull(em.find(ItemBookingDates.class, item.getId()));
+        ArchivedBooking archived = repository.findById(old.getId()).orElseThrow();
+        assertEquals(old.getStart(), archived.getStart());
+        assertEquals(old.getEnd(), archived.getEnd());
+        assertEquals(item.getId(), archived.getItem().getId());
+        assertEquals(booker.getId(), archived.getBooker().getId());
+        assertEquals(Status.APPROVED, archived.getStatus());
+        assertFalse(repository.existsById(last.getId()));
+
+        assertTrue(repository.existsByBookerIdAndItemIdAndStatus(booker.getId(), item.getId(), Status.APPROVED));
+        assertFalse(repository.existsByBookerIdAndItemIdAndStatus(booker.getId(), item.getId(), Status.REJECTED));
+        assertFalse(repository.existsByBookerIdAndItemIdAndStatus(0L, item.getId(), Status.APPROVED));
+    }
+
+    private Booking makeBooking(Instant start, Status status) {
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStart(start);
+        booking.setEnd(start.plusSeconds(1800));
+        booking.setStatus(status);
+        return em.persist(booking);
+    }
+}
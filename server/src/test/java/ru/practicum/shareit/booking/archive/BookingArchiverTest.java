@@ -0,0 +1,148 @@
+package ru.practicum.shareit.booking.archive;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.availability.BookingLocks;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingArchiverTest {
+    private static final int BATCH_SIZE = 2;
+    private static final int AFTER_DAYS = 30;
+
+    @Mock
+    private BookingRepository bookingRepo;
+
+    @Mock
+    private ArchivedBookingRepository repository;
+
+    @Mock
+    private BookingLocks locks;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher publisher;
+
+    private MeterRegistry registry;
+    private BookingArchiver archiver;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        archiver = new BookingArchiver(bookingRepo, repository, locks, transactionTemplate, publisher, registry,
+                AFTER_DAYS, BATCH_SIZE);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> invocation
+                .<TransactionCallback<Integer>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+    }
+
+    @Test
+    void nothingToArchive() {
+        when(bookingRepo.findArchivable(eq(Status.WAITING), any(), eq(PageRequest.of(0, BATCH_SIZE))))
+                .thenReturn(List.of());
+
+        archiver.archive();
+
+        verify(locks, never()).lockItems(anyCollection());
+        verify(repository, never()).copyFromBookings(anyCollection());
+        assertEquals(0.0, registry.get("bookings.archived").counter().count());
+    }
+
+    @Test
+    void archiveInBatches() {
+        when(bookingRepo.findArchivable(eq(Status.WAITING), any(), eq(PageRequest.of(0, BATCH_SIZE))))
+                .thenReturn(List.of(makeBooking(1L, 10L), makeBooking(2L, 20L)), List.of(makeBooking(3L, 10L)));
+        when(bookingRepo.findUnreferencedIds(List.of(1L, 2L))).thenReturn(List.of(1L, 2L));
+        when(bookingRepo.findUnreferencedIds(List.of(3L))).thenReturn(List.of(3L));
+        when(repository.copyFromBookings(List.of(1L, 2L))).thenReturn(2);
+        when(bookingRepo.deleteByIds(List.of(1L, 2L))).thenReturn(2);
+        when(repository.copyFromBookings(List.of(3L))).thenReturn(1);
+        when(bookingRepo.deleteByIds(List.of(3L))).thenReturn(1);
+
+        Instant now = Instant.now();
+        archiver.archive();
+
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(locks).lockItems(Set.of(10L, 20L));
+        verify(locks).lockItems(Set.of(10L));
+        assertEquals(3.0, registry.get("bookings.archived").counter().count());
+        ArgumentCaptor<BookingChangedEvent> events = ArgumentCaptor.forClass(BookingChangedEvent.class);
+        verify(publisher, times(3)).publishEvent(events.capture());
+        assertEquals(List.of(1L, 2L, 3L), events.getAllValues().stream().map(BookingChangedEvent::getBookingId)
+                .collect(Collectors.toList()));
+        assertEquals(List.of(10L, 20L, 10L), events.getAllValues().stream().map(BookingChangedEvent::getItemId)
+                .collect(Collectors.toList()));
+        assertTrue(events.getAllValues().stream().allMatch(BookingChangedEvent::isDeleted));
+        ArgumentCaptor<Instant> before = ArgumentCaptor.forClass(Instant.class);
+        verify(bookingRepo, times(2)).findArchivable(eq(Status.WAITING), before.capture(), any());
+        assertTrue(Duration.between(before.getValue(), now).toDays() >= AFTER_DAYS - 1);
+    }
+
+    @Test
+    void failOnPartialMove() {
+        when(bookingRepo.findArchivable(eq(Status.WAITING), any(), eq(PageRequest.of(0, BATCH_SIZE))))
+                .thenReturn(List.of(makeBooking(1L, 10L)));
+        when(bookingRepo.findUnreferencedIds(List.of(1L))).thenReturn(List.of(1L));
+        when(repository.copyFromBookings(List.of(1L))).thenReturn(1);
+        when(bookingRepo.deleteByIds(List.of(1L))).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> archiver.archive());
+    }
+
+    @Test
+    void skipBookingsReferencedMeanwhile() {
+        when(bookingRepo.findArchivable(eq(Status.WAITING), any(), eq(PageRequest.of(0, BATCH_SIZE))))
+                .thenReturn(List.of(makeBooking(1L, 10L)));
+        when(bookingRepo.findUnreferencedIds(List.of(1L))).thenReturn(List.of());
+
+        archiver.archive();
+
+        verify(repository, never()).copyFromBookings(anyCollection());
+        verify(bookingRepo, never()).deleteByIds(anyCollection());
+        verify(publisher, never()).publishEvent(any());
+    }
+
+    private static Booking makeBooking(long id, long itemId) {
+        Item item = new Item();
+        item.setId(itemId);
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setItem(item);
+        booking.setStatus(Status.APPROVED);
+        return booking;
+    }
+}
@@ -0,0 +1,192 @@
+package ru.practicum.shareit.booking.availability;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.datasource.PrimaryReads;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingAvailabilityTest {
+    private static final long ITEM_ID = 1L;
+    private static final Instant START = Instant.parse("2023-05-01T10:00:00Z");
+    private static final Instant END = Instant.parse("2023-05-01T12:00:00Z");
+
+    @Mock
+    private BookingRepository repository;
+
+    private MeterRegistry registry;
+    private BookingAvailability availability;
+
+    private Booking booking;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        availability = new BookingAvailability(repository, new PrimaryReads(), registry, 2);
+        booking = new Booking();
+        booking.setId(1L);
+        booking.setStart(START);
+        booking.setEnd(END);
+        booking.setStatus(Status.APPROVED);
+    }
+
+    @Test
+    void isFree() {
+        when(repository.findByItemIdAndStatus(ITEM_ID, Status.APPROVED)).thenReturn(List.of(booking));
+
+        assertFalse(availability.isFree(ITEM_ID, START.minusSeconds(60), START));
+        assertTrue(availability.isFree(ITEM_ID, END.plusSeconds(1), END.plusSeconds(60)));
+        verify(repository, times(1)).findByItemIdAndStatus(ITEM_ID, Status.APPROVED);
+        verify(repository, never()).findBookingsAtSameTime(ITEM_ID, Status.APPROVED, START, END);
+    }
+
+    @Test
+    void bookedDays() {
+        Booking overnight = new Booking();
+        overnight.setId(2L);
+        overnight.setStart(Instant.parse("2023-05-03T22:00:00Z"));
+        overnight.setEnd(Instant.parse("2023-05-05T02:00:00Z"));
+        when(repository.findByItemIdAndStatus(ITEM_ID, Status.APPROVED)).thenReturn(List.of(booking, overnight));
+
+        BitSet days = availability.bookedDays(ITEM_ID, LocalDate.of(2023, 5, 1), LocalDate.of(2023, 5, 7),
+                ZoneOffset.UTC);
+        assertEquals(BitSet.valueOf(new long[]{0b11101}), days);
+
+        //Bookings outside the period are cut off
+        days = availability.bookedDays(ITEM_ID, LocalDate.of(2023, 5, 4), LocalDate.of(2023, 5, 4),
+                ZoneOffset.UTC);
+        assertEquals(BitSet.valueOf(new long[]{0b1}), days);
+        days = availability.bookedDays(ITEM_ID, LocalDate.of(2023, 5, 6), LocalDate.of(2023, 5, 30),
+                ZoneOffset.UTC);
+        assertTrue(days.isEmpty());
+        verify(repository, times(1)).findByItemIdAndStatus(ITEM_ID, Status.APPROVED);
+    }
+
+    @Test
+    void bookedDaysDuringLoadFromDatabase() {
+        LocalDate day = LocalDate.of(2023, 5, 1);
+        Instant dayEnd = Instant.parse("2023-05-01T23:59:59.999999999Z");
+        when(repository.findByItemIdAndStatus(ITEM_ID, Status.APPROVED)).thenAnswer(invocation -> {
+            when(repository.findBookingsAtSameTime(ITEM_ID, Status.APPROVED, START.minusSeconds(36000), dayEnd))
+                    .thenReturn(List.of(booking));
+            assertEquals(BitSet.valueOf(new long[]{0b1}), availability.bookedDays(ITEM_ID, day, day,
+                    ZoneOffset.UTC));
+            return List.of();
+        });
+
+        assertTrue(availability.bookedDays(ITEM_ID, day, day, ZoneOffset.UTC).isEmpty());
+    }
+
+    @Test
+    void onBookingChanged() {
+        //Not loaded item is ignored
+        availability.onBookingChanged(event(2L, END.plusSeconds(60), END.plusSeconds(120), Status.APPROVED));
+        when(repository.findByItemIdAndStatus(ITEM_ID, Status.APPROVED)).thenReturn(List.of(booking));
+        assertTrue(availability.isFree(ITEM_ID, END.plusSeconds(60), END.plusSeconds(120)));
+
+        //Approved
+        availability.onBookingChanged(event(2L, END.plusSeconds(60), END.plusSeconds(120), Status.APPROVED));
+        assertFalse(availability.isFree(ITEM_ID, END.plusSeconds(60), END.plusSeconds(120)));
+
+        //Rejected
+        availability.onBookingChanged(event(1L, START, END, Status.REJECTED));
+        assertTrue(availability.isFree(ITEM_ID, START, END));
+
+        //Archived
+        availability.onBookingChanged(new BookingChangedEvent(2L, ITEM_ID, END.plusSeconds(60),
+                END.plusSeconds(120), Status.APPROVED, true));
+        assertTrue(availability.isFree(ITEM_ID, END.plusSeconds(60), END.plusSeconds(120)));
+    }
+
+    @Test
+    void changesDuringLoadAreApplied() {
+        when(repository.findByItemIdAndStatus(ITEM_ID, Status.APPROVED)).thenAnswer(invocation -> {
+            // Проверка другого потока во время загрузки идёт в базу
+            when(repository.findBookingsAtSameTime(ITEM_ID, Status.APPROVED, START, END)).thenReturn(List.of(booking));
+            assertFalse(availability.isFree(ITEM_ID, START, END));
+            availability.onBookingChanged(event(1L, START, END, Status.REJECTED));
+            return List.of(booking);
+        });
+
+        assertTrue(availability.isFree(ITEM_ID, START, END));
+    }
+
+    @Test
+    void failedLoadIsRetried() {
+        when(repository.findByItemIdAndStatus(ITEM_ID, Status.APPROVED))
+                .thenThrow(new IllegalStateException("connection"))
+                .thenReturn(List.of(booking));
+
+        assertThrows(IllegalStateException.class, () -> availability.isFree(ITEM_ID, START, END));
+        assertFalse(availability.isFree(ITEM_ID, START, END));
+    }
+
+    @Test
+    void onItemAndUserDeleted() {
+        when(repository.findByItemIdAndStatus(ITEM_ID, Status.APPROVED)).thenReturn(List.of(booking));
+        availability.isFree(ITEM_ID, START, END);
+
+        availability.onItemChanged(new ItemChangedEvent(ITEM_ID, 1L, "name", "description", true, false));
+        availability.isFree(ITEM_ID, START, END);
+        verify(repository, times(1)).findByItemIdAndStatus(ITEM_ID, Status.APPROVED);
+
+        availability.onItemChanged(new ItemChangedEvent(ITEM_ID, 1L, "name", "description", true, true));
+        availability.isFree(ITEM_ID, START, END);
+        verify(repository, times(2)).findByItemIdAndStatus(ITEM_ID, Status.APPROVED);
+
+        availability.onUserDeleted(new UserDeletedEvent(2L));
+        availability.isFree(ITEM_ID, START, END);
+        verify(repository, times(3)).findByItemIdAndStatus(ITEM_ID, Status.APPROVED);
+    }
+
+    @Test
+    void evictLeastRecentlyUsed() {
+        when(repository.findByItemIdAndStatus(anyLong(), eq(Status.APPROVED))).thenReturn(List.of(booking));
+        availability.isFree(1L, START, END);
+        availability.isFree(2L, START, END);
+        availability.isFree(1L, START, END);
+        availability.isFree(3L, START, END);
+        assertEquals(2, availability.itemCount());
+
+        availability.isFree(1L, START, END);
+        verify(repository, times(1)).findByItemIdAndStatus(1L, Status.APPROVED);
+        availability.isFree(2L, START, END);
+        verify(repository, times(2)).findByItemIdAndStatus(2L, Status.APPROVED);
+
+        assertEquals(2.0, registry.get("cache.evictions").counter().count());
+        assertEquals(2.0, registry.get("cache.gets").tag("result", "hit").counter().count());
+        assertEquals(4.0, registry.get("cache.gets").tag("result", "miss").counter().count());
+        assertEquals(2.0, registry.get("cache.size").gauge().value());
+    }
+
+    private static BookingChangedEvent event(long bookingId, Instant start, Instant end, Status status) {
+        return new BookingChangedEvent(bookingId, ITEM_ID, start, end, status);
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.shareit.booking.availability;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookingLocksTest {
+    private final BookingLocks locks = new BookingLocks(4);
+
+    @AfterEach
+    void clear() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void lockItemOutsideTransaction() {
+        assertThrows(IllegalStateException.class, () -> locks.lockItem(1L));
+        assertThrows(IllegalStateException.class, () -> locks.lockItems(List.of(1L)));
+    }
+
+    @Test
+    void lockItemUntilCompletion() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        locks.lockItem(1L);
+
+        // Другая вещь того же набора ждёт, вещь другого набора — нет
+        CompletableFuture<Void> sameStripe = CompletableFuture.runAsync(() -> lockInTransaction(5L));
+        CompletableFuture.runAsync(() -> lockInTransaction(2L)).get(5, TimeUnit.SECONDS);
+        assertThrows(TimeoutException.class, () -> sameStripe.get(200, TimeUnit.MILLISECONDS));
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        sameStripe.get(5, TimeUnit.SECONDS);
+        assertTrue(sameStripe.isDone());
+    }
+
+    @Test
+    void lockItemsInStripeOrder() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        locks.lockItems(List.of(6L, 1L, 5L));
+        assertEquals(2, TransactionSynchronizationManager.getSynchronizations().size());
+
+        CompletableFuture<Void> sameStripe = CompletableFuture.runAsync(() -> lockInTransaction(2L));
+        CompletableFuture.runAsync(() -> lockInTransaction(3L)).get(5, TimeUnit.SECONDS);
+        assertThrows(TimeoutException.class, () -> sameStripe.get(200, TimeUnit.MILLISECONDS));
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        sameStripe.get(5, TimeUnit.SECONDS);
+    }
+
+    private void lockInTransaction(long itemId) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            locks.lockItem(itemId);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
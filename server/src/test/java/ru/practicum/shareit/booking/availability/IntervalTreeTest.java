@@ -0,0 +1,99 @@
+package ru.practicum.shareit.booking.availability;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntervalTreeTest {
+    private static final Instant BASE = Instant.parse("2023-05-01T00:00:00Z");
+
+    @Test
+    void overlaps() {
+        IntervalTree tree = new IntervalTree();
+        assertFalse(tree.overlaps(at(0), at(10)));
+
+        tree.put(1L, at(10), at(20));
+        tree.put(2L, at(30), at(40));
+        assertTrue(tree.overlaps(at(5), at(10)));
+        assertTrue(tree.overlaps(at(20), at(25)));
+        assertTrue(tree.overlaps(at(12), at(15)));
+        assertTrue(tree.overlaps(at(0), at(50)));
+        assertFalse(tree.overlaps(at(21), at(29)));
+        assertFalse(tree.overlaps(at(41), at(50)));
+    }
+
+    @Test
+    void putAndRemove() {
+        IntervalTree tree = new IntervalTree();
+        tree.put(1L, at(10), at(20));
+        tree.put(1L, at(30), at(40));
+        assertEquals(1, tree.size());
+        assertFalse(tree.overlaps(at(10), at(20)));
+        assertTrue(tree.overlaps(at(35), at(36)));
+
+        tree.remove(1L);
+        tree.remove(2L);
+        assertEquals(0, tree.size());
+        assertFalse(tree.overlaps(at(35), at(36)));
+    }
+
+    @Test
+    void forEachOverlapping() {
+        IntervalTree tree = new IntervalTree();
+        tree.put(1L, at(30), at(40));
+        tree.put(2L, at(10), at(20));
+        tree.put(3L, at(50), at(60));
+        tree.put(4L, at(0), at(100));
+
+        List<Instant> starts = new ArrayList<>();
+        tree.forEachOverlapping(at(20), at(50), (start, end) -> starts.add(start));
+        assertEquals(List.of(at(0), at(10), at(30), at(50)), starts);
+
+        starts.clear();
+        tree.forEachOverlapping(at(101), at(200), (start, end) -> starts.add(start));
+        assertEquals(0, starts.size());
+    }
+
+    @Test
+    void matchesLinearScan() {
+        Random random = new Random(42);
+        IntervalTree tree = new IntervalTree();
+        Map<Long, Instant[]> intervals = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            long id = random.nextInt(300);
+            if (random.nextInt(4) == 0) {
+                tree.remove(id);
+                intervals.remove(id);
+            } else {
+                int start = random.nextInt(10_000);
+                Instant[] interval = {at(start), at(start + random.nextInt(200))};
+                tree.put(id, interval[0], interval[1]);
+                intervals.put(id, interval);
+            }
+            int start = random.nextInt(10_000);
+            Instant queryStart = at(start);
+            Instant queryEnd = at(start + random.nextInt(200));
+            long expected = intervals.values().stream()
+                    .filter(interval -> !interval[0].isAfter(queryEnd) && !interval[1].isBefore(queryStart))
+                    .count();
+            assertEquals(expected > 0, tree.overlaps(queryStart, queryEnd));
+            List<Instant> starts = new ArrayList<>();
+            tree.forEachOverlapping(queryStart, queryEnd, (intervalStart, intervalEnd) -> starts.add(intervalStart));
+            assertEquals(expected, starts.size());
+        }
+        assertEquals(intervals.size(), tree.size());
+    }
+
+    private static Instant at(int minutes) {
+        return BASE.plusSeconds(minutes * 60L);
+    }
+}
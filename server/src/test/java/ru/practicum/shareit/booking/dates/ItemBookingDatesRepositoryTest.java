@@ -0,0 +1,108 @@
+package ru.practicum.shareit.booking.dates;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest
+class ItemBookingDatesRepositoryTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private ItemBookingDatesRepository repository;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private ItemRepository itemRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    private Item item;
+    private Booking lastBooking;
+    private Booking nextBooking;
+
+    @BeforeEach
+    void setup() {
+        User owner = new User();
+        owner.setName("name");
+        owner.setEmail("e@mail.ru");
+        owner = userRepo.save(owner);
+
+        User booker = new User();
+        booker.setName("name1");
+        booker.setEmail("e1@mail.ru");
+        booker = userRepo.save(booker);
+
+        item = new Item();
+        item.setName("Дрель");
+        item.setDescription("Дрель ударная");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        item = itemRepo.save(item);
+
+        Instant now = Instant.now();
+        lastBooking = makeBooking(booker, now.minusSeconds(3600));
+        nextBooking = makeBooking(booker, now.plusSeconds(3600));
+
+        ItemBookingDates dates = new ItemBookingDates();
+        dates.setItemId(item.getId());
+        dates.setLastBooking(lastBooking);
+        dates.setNextBooking(nextBooking);
+        repository.save(dates);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void findByItemIdIn() {
+        List<ItemBookingDates> dates = repository.findByItemIdIn(List.of(item.getId(), 0L));
+        assertEquals(1, dates.size());
+        assertEquals(lastBooking.getId(), dates.get(0).getLastBooking().getId());
+        assertEquals(nextBooking.getId(), dates.get(0).getNextBooking().getId());
+    }
+
+    @Test
+    void findItemIdsWithStartedNext() {
+        assertEquals(0, repository.findItemIdsWithStartedNext(Instant.now()).size());
+        assertEquals(List.of(item.getId()),
+                repository.findItemIdsWithStartedNext(nextBooking.getStart().plusSeconds(1)));
+    }
+
+    @Test
+    void deletedWithBooking() {
+        bookingRepo.deleteById(lastBooking.getId());
+        em.flush();
+        em.clear();
+        assertNull(em.find(ItemBookingDates.class, item.getId()));
+    }
+
+    private Booking makeBooking(User booker, Instant start) {
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStart(start);
+        booking.setEnd(start.plusSeconds(1800));
+        booking.setStatus(Status.APPROVED);
+        return bookingRepo.save(booking);
+    }
+}
@@ -0,0 +1,167 @@
+package ru.practicum.shareit.booking.dates;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.availability.BookingLocks;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemBookingDatesUpdaterTest {
+    private static final long ITEM_ID = 1L;
+    private static final Instant NOW = Instant.now();
+
+    @Mock
+    private ItemBookingDatesRepository repository;
+
+    @Mock
+    private BookingRepository bookingRepo;
+
+    @Mock
+    private BookingLocks locks;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private ItemBookingDatesUpdater updater;
+
+    private Booking lastBooking;
+    private Booking nextBooking;
+
+    @BeforeEach
+    void setup() {
+        lastBooking = makeBooking(1L, NOW.minusSeconds(3600));
+        nextBooking = makeBooking(2L, NOW.plusSeconds(3600));
+    }
+
+    @AfterEach
+    void clean() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void onBookingChanged() {
+        Item otherItem = new Item();
+        otherItem.setId(ITEM_ID + 1);
+        Booking otherBooking = makeBooking(3L, NOW.plusSeconds(7200));
+        otherBooking.setItem(otherItem);
+        ItemBookingDates existing = new ItemBookingDates();
+        existing.setItemId(ITEM_ID + 1);
+        existing.setLastBooking(lastBooking);
+        when(repository.findAllById(Set.of(ITEM_ID, ITEM_ID + 1))).thenReturn(List.of(existing));
+        when(bookingRepo.findLastAndNextByItemIdIn(eq(Set.of(ITEM_ID, ITEM_ID + 1)), any()))
+                .thenReturn(List.of(lastBooking, nextBooking, otherBooking));
+        TransactionSynchronizationManager.initSynchronization();
+
+        updater.onBookingChanged(makeEvent(ITEM_ID));
+        updater.onBookingChanged(makeEvent(ITEM_ID + 1));
+        updater.onBookingChanged(makeEvent(ITEM_ID));
+        verify(locks, never()).lockItems(any());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertEquals(1, synchronizations.size());
+        synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+        synchronizations.forEach(synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        verify(locks).lockItems(Set.of(ITEM_ID, ITEM_ID + 1));
+        ItemBookingDates dates = saved();
+        assertEquals(ITEM_ID, dates.getItemId());
+        assertTrue(dates.isNew());
+        assertSame(lastBooking, dates.getLastBooking());
+        assertSame(nextBooking, dates.getNextBooking());
+        assertNull(existing.getLastBooking());
+        assertSame(otherBooking, existing.getNextBooking());
+        assertFalse(TransactionSynchronizationManager.hasResource(updater));
+    }
+
+    @Test
+    void onBookingChangedOutsideTransaction() {
+        updater.onBookingChanged(makeEvent(ITEM_ID));
+
+        verify(locks, never()).lockItems(any());
+        verify(repository, never()).saveAll(any());
+    }
+
+    @Test
+    void rollOver() {
+        //Nothing Started
+        updater.rollOver();
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+
+        //Next Booking Started
+        when(repository.findItemIdsWithStartedNext(any())).thenReturn(List.of(ITEM_ID));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(bookingRepo.findLastAndNextByItemIdIn(eq(List.of(ITEM_ID)), any())).thenReturn(List.of(nextBooking));
+        nextBooking.setStart(NOW.minusSeconds(60));
+
+        updater.rollOver();
+
+        verify(locks).lockItems(List.of(ITEM_ID));
+        ItemBookingDates dates = saved();
+        assertSame(nextBooking, dates.getLastBooking());
+        assertNull(dates.getNextBooking());
+    }
+
+    private ItemBookingDates saved() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ItemBookingDates>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(captor.capture());
+        List<ItemBookingDates> created = captor.getValue();
+        assertEquals(1, created.size());
+        return created.get(0);
+    }
+
+    private static BookingChangedEvent makeEvent(long itemId) {
+        return new BookingChangedEvent(2L, itemId, NOW, NOW.plusSeconds(1800), Status.WAITING);
+    }
+
+    private static Booking makeBooking(long id, Instant start) {
+        Item item = new Item();
+        item.setId(ITEM_ID);
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setId(id);
+        booking.setStart(start);
+        booking.setEnd(start.plusSeconds(1800));
+        booking.setStatus(Status.APPROVED);
+        return booking;
+    }
+}
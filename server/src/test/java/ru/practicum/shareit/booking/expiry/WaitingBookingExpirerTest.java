@@ -0,0 +1,130 @@
+package ru.practicum.shareit.booking.expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.availability.BookingLocks;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WaitingBookingExpirerTest {
+    private static final int BATCH_SIZE = 2;
+    private static final Instant NOW = Instant.now();
+
+    @Mock
+    private BookingRepository repository;
+
+    @Mock
+    private BookingLocks locks;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher publisher;
+
+    private MeterRegistry registry;
+    private WaitingBookingExpirer expirer;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        expirer = new WaitingBookingExpirer(repository, locks, transactionTemplate, publisher, registry, BATCH_SIZE);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> invocation
+                .<TransactionCallback<List<Booking>>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+    }
+
+    @Test
+    void nothingToExpire() {
+        when(repository.findByStatusAndStartBefore(eq(Status.WAITING), any(), eq(PageRequest.of(0, BATCH_SIZE))))
+                .thenReturn(List.of());
+
+        expirer.expire();
+
+        verify(locks, never()).lockItems(anyCollection());
+        verify(repository, never()).updateStatus(anyCollection(), any(), any());
+        assertEquals(0.0, registry.get("bookings.expired").counter().count());
+        assertEquals(0.0, registry.get("bookings.expiry.lag").gauge().value());
+    }
+
+    @Test
+    void expireInBatches() {
+        Booking oldest = makeBooking(1L, 10L, NOW.minusSeconds(3600));
+        Booking approved = makeBooking(2L, 20L, NOW.minusSeconds(1800));
+        Booking last = makeBooking(3L, 10L, NOW.minusSeconds(60));
+        when(repository.findByStatusAndStartBefore(eq(Status.WAITING), any(), eq(PageRequest.of(0, BATCH_SIZE))))
+                .thenReturn(List.of(oldest, approved), List.of(last));
+        // Второе бронирование подтверждено до того, как взята блокировка вещи
+        when(repository.findByIdInAndStatus(List.of(1L, 2L), Status.WAITING)).thenReturn(List.of(oldest));
+        when(repository.findByIdInAndStatus(List.of(3L), Status.WAITING)).thenReturn(List.of(last));
+        when(repository.updateStatus(anyCollection(), eq(Status.WAITING), eq(Status.REJECTED))).thenReturn(1);
+
+        expirer.expire();
+
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(locks).lockItems(Set.of(10L, 20L));
+        verify(locks).lockItems(Set.of(10L));
+        verify(repository).updateStatus(List.of(1L), Status.WAITING, Status.REJECTED);
+        verify(repository).updateStatus(List.of(3L), Status.WAITING, Status.REJECTED);
+        verify(publisher).publishEvent(new BookingChangedEvent(1L, 10L, oldest.getStart(), oldest.getEnd(),
+                Status.REJECTED));
+        verify(publisher).publishEvent(new BookingChangedEvent(3L, 10L, last.getStart(), last.getEnd(),
+                Status.REJECTED));
+        verify(publisher, times(2)).publishEvent(any(Object.class));
+        assertEquals(2.0, registry.get("bookings.expired").counter().count());
+        assertTrue(registry.get("bookings.expiry.lag").gauge().value() >= 3600);
+    }
+
+    @Test
+    void skipBatchApprovedMeanwhile() {
+        Booking approved = makeBooking(1L, 10L, NOW.minusSeconds(60));
+        when(repository.findByStatusAndStartBefore(eq(Status.WAITING), any(), eq(PageRequest.of(0, BATCH_SIZE))))
+                .thenReturn(List.of(approved));
+        when(repository.findByIdInAndStatus(List.of(1L), Status.WAITING)).thenReturn(List.of());
+
+        expirer.expire();
+
+        verify(repository, never()).updateStatus(anyCollection(), any(), any());
+        verify(publisher, never()).publishEvent(any(Object.class));
+    }
+
+    private static Booking makeBooking(long id, long itemId, Instant start) {
+        Item item = new Item();
+        item.setId(itemId);
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setItem(item);
+        booking.setStart(start);
+        booking.setEnd(start.plusSeconds(7200));
+        booking.setStatus(Status.WAITING);
+        return booking;
+    }
+}
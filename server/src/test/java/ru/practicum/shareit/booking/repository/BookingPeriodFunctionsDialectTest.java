@@ -0,0 +1,87 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.PostgreSQL10Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.hql.internal.ast.ASTQueryTranslatorFactory;
+import org.hibernate.hql.spi.QueryTranslator;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.enums.BookingRole;
+import ru.practicum.shareit.booking.enums.State;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * SQL текущих бронирований в диалекте PostgreSQL: условие пересечения превращается в оператор && над
+ * закрытыми с обеих сторон tsrange, как и в индексах V8. Запрос только строится, база для этого не нужна.
+ */
+class BookingPeriodFunctionsDialectTest {
+
+    @Test
+    void currentStateOnPostgres() throws SQLException {
+        String sql = renderCurrent();
+
+        assertTrue(sql.endsWith(" from bookings booking0_ where booking0_.booker_id=1 and "
+                + "(tsrange(booking0_.start_date, booking0_.end_date, '[]') && tsrange(?, ?, '[]'))=true"), sql);
+    }
+
+    private static String renderCurrent() throws SQLException {
+        Connection connection = mock(Connection.class, Answers.RETURNS_DEEP_STUBS);
+        when(connection.getMetaData().getDatabaseProductName()).thenReturn("PostgreSQL");
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.DATASOURCE, dataSource)
+                .applySetting(AvailableSettings.DIALECT, PostgreSQL10Dialect.class.getName())
+                .applySetting("hibernate.temp.use_jdbc_metadata_defaults", false)
+                .build();
+        try {
+            MetadataBuilder builder = new MetadataSources(registry)
+                    .addAnnotatedClass(Booking.class)
+                    .addAnnotatedClass(Item.class)
+                    .addAnnotatedClass(ItemRequest.class)
+                    .addAnnotatedClass(User.class)
+                    .getMetadataBuilder();
+            new BookingPeriodFunctions().contribute(builder);
+            Metadata metadata = builder.build();
+            try (SessionFactory sessionFactory = metadata.buildSessionFactory();
+                 Session session = sessionFactory.openSession()) {
+                CriteriaBuilder cb = session.getCriteriaBuilder();
+                CriteriaQuery<Booking> query = cb.createQuery(Booking.class);
+                Root<Booking> root = query.from(Booking.class);
+                query.where(BookingSpecifications.<Booking>of(BookingRole.BOOKER, 1L, State.CURRENT, Instant.now())
+                        .toPredicate(root, query, cb));
+                String hql = session.createQuery(query).getQueryString();
+                QueryTranslator translator = new ASTQueryTranslatorFactory().createQueryTranslator(hql, hql,
+                        Map.of(), sessionFactory.unwrap(SessionFactoryImplementor.class), null);
+                translator.compile(Map.of(), false);
+                return translator.getSQLString();
+            }
+        } finally {
+            StandardServiceRegistryBuilder.destroy(registry);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.spi.MetadataBuilderImplementor;
+import org.hibernate.dialect.function.SQLFunction;
+import org.hibernate.engine.jdbc.connections.spi.JdbcConnectionAccess;
+import org.hibernate.engine.jdbc.spi.JdbcServices;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingPeriodFunctionsTest {
+    private static final List<String> ARGS = List.of("b.start_date", "b.end_date", "?", "?");
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private MetadataBuilderImplementor builder;
+
+    @Mock
+    private StandardServiceRegistry registry;
+
+    @Mock
+    private JdbcServices jdbcServices;
+
+    @Mock
+    private JdbcConnectionAccess access;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private Connection connection;
+
+    @BeforeEach
+    void setup() {
+        when(builder.getBootstrapContext().getServiceRegistry()).thenReturn(registry);
+        when(registry.getService(JdbcServices.class)).thenReturn(jdbcServices);
+        when(jdbcServices.getBootstrapJdbcConnectionAccess()).thenReturn(access);
+    }
+
+    @Test
+    void rangesOnPostgres() throws SQLException {
+        when(access.obtainConnection()).thenReturn(connection);
+        when(connection.getMetaData().getDatabaseProductName()).thenReturn("PostgreSQL");
+
+        assertEquals("(tsrange(b.start_date, b.end_date, '[]') && tsrange(?, ?, '[]'))", render());
+        verify(access).releaseConnection(connection);
+    }
+
+    @Test
+    void comparisonsOnH2() throws SQLException {
+        when(access.obtainConnection()).thenReturn(connection);
+        when(connection.getMetaData().getDatabaseProductName()).thenReturn("H2");
+
+        assertEquals("(b.end_date >= ? and b.start_date <= ?)", render());
+        verify(access).releaseConnection(connection);
+    }
+
+    @Test
+    void comparisonsWithoutConnection() throws SQLException {
+        when(access.obtainConnection()).thenThrow(new SQLException("нет соединения"));
+
+        assertEquals("(b.end_date >= ? and b.start_date <= ?)", render());
+    }
+
+    private String render() {
+        new BookingPeriodFunctions().contribute(builder);
+        ArgumentCaptor<SQLFunction> function = ArgumentCaptor.forClass(SQLFunction.class);
+        verify(builder).applySqlFunction(eq(BookingPeriodFunctions.OVERLAPS), function.capture());
+        return function.getValue().render(null, ARGS, null);
+    }
+}
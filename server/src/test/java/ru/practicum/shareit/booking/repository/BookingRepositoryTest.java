@@ -5,22 +5,43 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.dates.ItemBookingDates;
+import ru.practicum.shareit.booking.enums.BookingRole;
+import ru.practicum.shareit.booking.enums.State;
 import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.error.exception.UnsupportedStatusException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import javax.persistence.TypedQuery;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class BookingRepositoryTest {
+    private static final Sort SORT = Sort.by(Sort.Direction.DESC, "start", "id");
 
     @Autowired
     private TestEntityManager em;
@@ -111,5 +132,308 @@ class BookingRepositoryTest {
         assertNotNull(bookingsFound);
         assertEquals(1, bookingsFound.size());
         assertEquals(bookings.get(0).getId(), bookingsFound.get(0).getId());
+
+        //Several Items
+        bookingsFound = repository.findByItemIdInAndStatusOverlapping(List.of(item.getId(), 0L), status, start, end);
+        assertEquals(List.of(booking.getId()), ids(bookingsFound));
+        bookingsFound = repository.findByItemIdInAndStatusOverlapping(List.of(0L), status, start, end);
+        assertEquals(0, bookingsFound.size());
+    }
+
+    @Test
+    void findLastAndNextByItemIdIn() {
+        Instant now = Instant.now();
+        Booking first = makeBooking(item, now.minusSeconds(600), Status.APPROVED);
+        Booking last = makeBooking(item, now.minusSeconds(300), Status.WAITING);
+        makeBooking(item, now.minusSeconds(100), Status.REJECTED);
+        makeBooking(item, now.plusSeconds(2), Status.CANCELED);
+        makeBooking(item, now.plusSeconds(600), Status.APPROVED);
+
+        Item other = new Item();
+        other.setName("Дрель");
+        other.setDescription("Дрель ударная");
+        other.setAvailable(true);
+        other.setOwner(owner);
+        other = itemRepo.save(other);
+        Booking otherNext = makeBooking(other, now.plusSeconds(60), Status.WAITING);
+        makeBooking(other, now.plusSeconds(120), Status.WAITING);
+        em.flush();
+        em.clear();
+
+        List<Booking> bookings = repository.findLastAndNextByItemIdIn(List.of(item.getId(), other.getId()), now);
+        assertEquals(Set.of(last.getId(), booking.getId(), otherNext.getId()), Set.copyOf(ids(bookings)));
+
+        bookings = repository.findLastAndNextByItemIdIn(List.of(item.getId()), now.minusSeconds(1000));
+        assertEquals(List.of(first.getId()), ids(bookings));
+    }
+
+    @Test
+    void findByItemIdAndStatus() {
+        Booking rejected = new Booking();
+        rejected.setItem(item);
+        rejected.setBooker(booker);
+        rejected.setStart(booking.getEnd().plusSeconds(5));
+        rejected.setEnd(booking.getEnd().plusSeconds(60));
+        rejected.setStatus(Status.REJECTED);
+        repository.save(rejected);
+
+        List<Booking> bookings = repository.findByItemIdAndStatus(item.getId(), Status.APPROVED);
+        assertEquals(1, bookings.size());
+        assertEquals(booking.getId(), bookings.get(0).getId());
+
+        bookings = repository.findByItemIdAndStatus(0L, Status.APPROVED);
+        assertEquals(0, bookings.size());
+    }
+
+    @Test
+    void expireWaiting() {
+        Instant now = Instant.now();
+        Booking stale = makeBooking(item, now.minusSeconds(600), Status.WAITING);
+        Booking staler = makeBooking(item, now.minusSeconds(1200), Status.WAITING);
+        makeBooking(item, now.minusSeconds(1800), Status.APPROVED);
+        makeBooking(item, now.plusSeconds(600), Status.WAITING);
+
+        List<Booking> bookings = repository.findByStatusAndStartBefore(Status.WAITING, now, PageRequest.of(0, 10));
+        assertEquals(List.of(staler.getId(), stale.getId()), ids(bookings));
+        bookings = repository.findByStatusAndStartBefore(Status.WAITING, now, PageRequest.of(0, 1));
+        assertEquals(List.of(staler.getId()), ids(bookings));
+
+        List<Long> staleIds = List.of(stale.getId(), staler.getId(), booking.getId());
+        assertEquals(Set.of(stale.getId(), staler.getId()),
+                Set.copyOf(ids(repository.findByIdInAndStatus(staleIds, Status.WAITING))));
+        assertEquals(2, repository.updateStatus(staleIds, Status.WAITING, Status.REJECTED));
+        assertEquals(0, repository.updateStatus(staleIds, Status.WAITING, Status.REJECTED));
+        em.clear();
+        assertEquals(Status.REJECTED, repository.findById(stale.getId()).orElseThrow().getStatus());
+        assertEquals(Status.APPROVED, repository.findById(booking.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void findWithItemAndBookerByIdIn() {
+        Booking other = makeBooking(item, Instant.now().plusSeconds(600), Status.WAITING);
+        em.flush();
+        em.clear();
+
+        List<Booking> bookings = repository.findWithItemAndBookerByIdIn(List.of(booking.getId(), other.getId(), 0L));
+        assertEquals(Set.of(booking.getId(), other.getId()), Set.copyOf(ids(bookings)));
+        em.clear();
+        // Всё, что нужно для ответа, загружено вместе с бронированиями
+        bookings.forEach(found -> {
+            assertEquals(owner.getId(), found.getItem().getOwner().getId());
+            assertNotNull(found.getBooker().getName());
+        });
+    }
+
+    @Test
+    void findArchivable() {
+        Instant now = Instant.now();
+        Booking old = makeBooking(item, now.minusSeconds(7200), Status.REJECTED);
+        Booking older = makeBooking(item, now.minusSeconds(9000), Status.APPROVED);
+        Booking last = makeBooking(item, now.minusSeconds(3600), Status.APPROVED);
+        makeBooking(item, now.minusSeconds(10000), Status.WAITING);
+        ItemBookingDates dates = new ItemBookingDates();
+        dates.setItemId(item.getId());
+        dates.setLastBooking(last);
+        em.persist(dates);
+
+        List<Booking> bookings = repository.findArchivable(Status.WAITING, now, PageRequest.of(0, 10));
+        assertEquals(List.of(older.getId(), old.getId()), ids(bookings));
+        bookings = repository.findArchivable(Status.WAITING, now.minusSeconds(8000), PageRequest.of(0, 10));
+        assertEquals(List.of(older.getId()), ids(bookings));
+    }
+
+    @Test
+    void findSliceWithArchive() {
+        // Без долей секунды: архив хранит время с точностью до микросекунд, а курсор берётся из сущности
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        Booking first = makeBooking(item, now.minusSeconds(9000), Status.APPROVED);
+        Booking second = makeBooking(item, now.minusSeconds(8000), Status.REJECTED);
+        Booking third = makeBooking(item, now.minusSeconds(7000), Status.APPROVED);
+        em.flush();
+        em.getEntityManager().createNativeQuery("insert into bookings_archive " +
+                        "(id, start_date, end_date, item_id, booker_id, status) select id, start_date, end_date, " +
+                        "item_id, booker_id, status from bookings where id in (:ids)")
+                .setParameter("ids", List.of(first.getId(), third.getId()))
+                .executeUpdate();
+        repository.deleteAllById(List.of(first.getId(), third.getId()));
+        em.flush();
+        em.clear();
+
+        Slice<Booking> slice = findWithArchive(BookingRole.BOOKER, booker.getId(), State.ALL, null, 0, 2);
+        assertEquals(List.of(booking.getId(), third.getId()), ids(slice.getContent()));
+        assertTrue(slice.hasNext());
+        slice = findWithArchive(BookingRole.BOOKER, booker.getId(), State.ALL, null, 1, 2);
+        assertEquals(List.of(second.getId(), first.getId()), ids(slice.getContent()));
+        assertFalse(slice.hasNext());
+        assertEquals(third.getItem().getOwner().getId(), slice.getContent().get(1).getItem().getOwner().getId());
+
+        //After Cursor
+        slice = findWithArchive(BookingRole.OWNER, owner.getId(), State.PAST, third, 0, 10);
+        assertEquals(List.of(second.getId(), first.getId()), ids(slice.getContent()));
+
+        //Filter By State
+        slice = findWithArchive(BookingRole.OWNER, owner.getId(), State.REJECTED, null, 0, 10);
+        assertEquals(List.of(second.getId()), ids(slice.getContent()));
+    }
+
+    @Test
+    void findSliceByBookerAndState() {
+        Booking sameStart = new Booking();
+        sameStart.setItem(item);
+        sameStart.setBooker(booker);
+        sameStart.setStart(booking.getStart());
+        sameStart.setEnd(booking.getEnd());
+        sameStart.setStatus(Status.WAITING);
+        sameStart = repository.save(sameStart);
+        em.flush();
+        em.clear();
+
+        Instant now = Instant.now();
+        PageRequest page = PageRequest.of(0, 1, SORT);
+        Slice<Booking> slice = repository.findSlice(
+                BookingSpecifications.of(BookingRole.BOOKER, booker.getId(), State.ALL, now), page);
+        assertEquals(List.of(sameStart.getId()), ids(slice.getContent()));
+        assertTrue(slice.hasNext());
+
+        //After Cursor
+        Booking last = slice.getContent().get(0);
+        Specification<Booking> spec = BookingSpecifications.<Booking>of(BookingRole.BOOKER, booker.getId(), State.ALL,
+                        now)
+                .and(BookingSpecifications.before(last.getStart(), last.getId()));
+        slice = repository.findSlice(spec, page);
+        assertEquals(List.of(booking.getId()), ids(slice.getContent()));
+        assertFalse(slice.hasNext());
+
+        //Filter By State
+        assertEquals(List.of(sameStart.getId()), findIds(BookingRole.BOOKER, booker.getId(), State.WAITING, now));
+        assertEquals(List.of(sameStart.getId(), booking.getId()),
+                findIds(BookingRole.BOOKER, booker.getId(), State.FUTURE, now));
+        assertEquals(0, findIds(BookingRole.BOOKER, booker.getId(), State.PAST, now).size());
+        assertEquals(0, findIds(BookingRole.BOOKER, booker.getId(), State.REJECTED, now).size());
+        assertEquals(List.of(sameStart.getId(), booking.getId()),
+                findIds(BookingRole.BOOKER, booker.getId(), State.CURRENT, booking.getStart().plusSeconds(1)));
+        assertEquals(List.of(sameStart.getId(), booking.getId()),
+                findIds(BookingRole.BOOKER, booker.getId(), State.PAST, booking.getEnd().plusSeconds(1)));
+        assertEquals(0, findIds(BookingRole.BOOKER, owner.getId(), State.ALL, now).size());
+    }
+
+    @Test
+    void findSliceByOwnerAndState() {
+        Instant now = Instant.now();
+        assertEquals(List.of(booking.getId()), findIds(BookingRole.OWNER, owner.getId(), State.ALL, now));
+        assertEquals(List.of(booking.getId()), findIds(BookingRole.OWNER, owner.getId(), State.FUTURE, now));
+        assertEquals(0, findIds(BookingRole.OWNER, owner.getId(), State.WAITING, now).size());
+        assertEquals(0, findIds(BookingRole.OWNER, booker.getId(), State.ALL, now).size());
+
+        //Unknown State
+        assertThrows(UnsupportedStatusException.class,
+                () -> BookingSpecifications.of(BookingRole.OWNER, owner.getId(), State.UNKNOWN, now));
+    }
+
+    @Test
+    void listingsLoadPageInOneQuery() {
+        for (int i = 0; i < 3; i++) {
+            User otherOwner = new User();
+            otherOwner.setName("owner" + i);
+            otherOwner.setEmail("owner" + i + "@mail.ru");
+            otherOwner = userRepo.save(otherOwner);
+            Item otherItem = new Item();
+            otherItem.setName("Дрель " + i);
+            otherItem.setDescription("Дрель ударная");
+            otherItem.setAvailable(true);
+            otherItem.setOwner(i == 0 ? owner : otherOwner);
+            otherItem = itemRepo.save(otherItem);
+            Booking other = new Booking();
+            other.setItem(otherItem);
+            other.setBooker(booker);
+            other.setStart(booking.getEnd().plusSeconds(60L * (i + 1)));
+            other.setEnd(booking.getEnd().plusSeconds(60L * (i + 2)));
+            other.setStatus(Status.WAITING);
+            repository.save(other);
+        }
+        Instant now = Instant.now();
+        PageRequest page = PageRequest.of(0, 10, SORT);
+
+        assertEquals(4, countQueries(() -> repository.findSlice(
+                BookingSpecifications.of(BookingRole.BOOKER, booker.getId(), State.ALL, now), page).getContent()));
+        assertEquals(3, countQueries(() -> repository.findSlice(
+                BookingSpecifications.of(BookingRole.BOOKER, booker.getId(), State.WAITING, now), page).getContent()));
+        assertEquals(2, countQueries(() -> repository.findSlice(
+                BookingSpecifications.of(BookingRole.OWNER, owner.getId(), State.ALL, now), page).getContent()));
+        assertEquals(1, countQueries(() -> repository.findSlice(
+                BookingSpecifications.of(BookingRole.OWNER, owner.getId(), State.WAITING, now), page).getContent()));
+    }
+
+    // Страница бронирований вместе с маппингом в dto должна загружаться одним запросом
+    @Test
+    void saveAllInsertsInOneBatch() {
+        em.flush();
+        Statistics statistics = em.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        Instant start = Instant.now().plusSeconds(3600);
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Booking newBooking = new Booking();
+            newBooking.setItem(item);
+            newBooking.setBooker(booker);
+            newBooking.setStart(start.plusSeconds(i * 60L));
+            newBooking.setEnd(start.plusSeconds(i * 60L + 30));
+            newBooking.setStatus(Status.WAITING);
+            bookings.add(newBooking);
+        }
+        repository.saveAll(bookings);
+        em.flush();
+        // Один INSERT на весь пакет и не больше одного обращения к последовательности за новым блоком
+        assertTrue(statistics.getPrepareStatementCount() <= 2);
+        assertEquals(10, Set.copyOf(ids(bookings)).size());
+
+        // Вставка в обход Hibernate берёт значение из той же последовательности и не занимает выданный блок
+        em.getEntityManager().createNativeQuery("insert into users (name, email) values ('raw', 'raw@mail.ru')")
+                .executeUpdate();
+        User user = new User();
+        user.setName("name2");
+        user.setEmail("e2@mail.ru");
+        userRepo.save(user);
+        em.flush();
+        assertEquals(4, userRepo.count());
+    }
+
+    private int countQueries(Supplier<List<Booking>> listing) {
+        em.flush();
+        em.clear();
+        Statistics statistics = em.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<Booking> bookings = listing.get();
+        bookings.forEach(BookingMapper::toBookingDtoOut);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        return bookings.size();
+    }
+
+    private Booking makeBooking(Item bookedItem, Instant start, Status status) {
+        Booking newBooking = new Booking();
+        newBooking.setItem(bookedItem);
+        newBooking.setBooker(booker);
+        newBooking.setStart(start);
+        newBooking.setEnd(start.plusSeconds(30));
+        newBooking.setStatus(status);
+        return repository.save(newBooking);
+    }
+
+    private Slice<Booking> findWithArchive(BookingRole role, long userId, State state, Booking after, int page,
+                                           int size) {
+        Cursor cursor = after == null ? null : Cursor.of(after.getStart(), after.getId());
+        return repository.findSliceWithArchive(role, userId, state, Instant.now(), cursor,
+                PageRequest.of(page, size, SORT));
+    }
+
+    private List<Long> findIds(BookingRole role, long userId, State state, Instant now) {
+        return ids(repository.findSlice(BookingSpecifications.of(role, userId, state, now),
+                PageRequest.of(0, 10, SORT)).getContent());
+    }
+
+    private List<Long> ids(List<Booking> bookings) {
+        return bookings.stream().map(Booking::getId).collect(Collectors.toList());
     }
-}
\ No newline at end of file
+}
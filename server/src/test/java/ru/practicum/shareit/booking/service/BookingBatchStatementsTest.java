@@ -0,0 +1,164 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.dates.ItemBookingDates;
+import ru.practicum.shareit.booking.dates.ItemBookingDatesRepository;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingInDto;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Пакетные операции выполняют одинаковое число запросов для одного и для многих бронирований вещи:
+ * даты бронирований пересчитываются один раз на транзакцию.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class BookingBatchStatementsTest {
+    private static final int BATCH = 10;
+
+    private final BookingService service;
+    private final BookingRepository repository;
+    private final ItemRepository itemRepo;
+    private final UserRepository userRepo;
+    private final ItemBookingDatesRepository datesRepo;
+    private final EntityManagerFactory emf;
+
+    private final Instant start = Instant.now().plus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+    private User owner;
+    private User booker;
+
+    @BeforeEach
+    void setup() {
+        owner = makeUser("owner@statements.ru");
+        booker = makeUser("booker@statements.ru");
+    }
+
+    @AfterEach
+    void clean() {
+        userRepo.deleteAll(List.of(owner, booker));
+    }
+
+    @Test
+    void patchAll() {
+        //Прогрев кэша пользователей
+        approveAll(1);
+
+        assertEquals(approveAll(1), approveAll(BATCH));
+    }
+
+    @Test
+    void addAll() {
+        //Прогрев кэша пользователей
+        addAll(1);
+
+        assertEquals(addAll(1), addAll(BATCH));
+    }
+
+    private long approveAll(int count) {
+        Item item = makeItem();
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            bookingIds.add(repository.save(makeBooking(item, start.plus(i, ChronoUnit.HOURS), Status.WAITING))
+                    .getId());
+        }
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        service.patchAll(owner.getId(), bookingIds, true);
+
+        long statements = statistics.getPrepareStatementCount();
+        assertEquals(bookingIds.get(0), nextBookingId(item));
+        return statements;
+    }
+
+    private long addAll(int count) {
+        Item item = makeItem();
+        startNewIdPool(item);
+        List<BookingInDto> bookingDtos = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Instant bookingStart = start.plus(i, ChronoUnit.HOURS);
+            bookingDtos.add(BookingInDto.builder()
+                    .start(LocalDateTime.ofInstant(bookingStart, ZoneId.systemDefault()))
+                    .end(LocalDateTime.ofInstant(bookingStart.plusSeconds(1800), ZoneId.systemDefault()))
+                    .itemId(item.getId())
+                    .build());
+        }
+        Statistics statistics = statistics();
+        statistics.clear();
+
+        List<BookingBatchResultDto> results = service.addAll(booker.getId(), bookingDtos, true);
+
+        long statements = statistics.getPrepareStatementCount();
+        results.forEach(result -> assertNull(result.getError()));
+        assertEquals(results.get(0).getBooking().getId(), nextBookingId(item));
+        return statements;
+    }
+
+    // Идентификаторы выдаются пулами по 50: обращение к последовательности внутри замера исказило бы счёт
+    private void startNewIdPool(Item item) {
+        Statistics statistics = statistics();
+        do {
+            statistics.clear();
+            repository.save(makeBooking(item, start.minus(1, ChronoUnit.DAYS), Status.REJECTED));
+        } while (statistics.getPrepareStatementCount() < 2);
+    }
+
+    private Long nextBookingId(Item item) {
+        ItemBookingDates dates = datesRepo.findByItemIdIn(List.of(item.getId())).get(0);
+        return dates.getNextBooking().getId();
+    }
+
+    private Statistics statistics() {
+        return emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private Item makeItem() {
+        Item item = new Item();
+        item.setName("Дрель");
+        item.setDescription("Дрель ударная");
+        item.setAvailable(true);
+        item.setOwner(owner);
+        return itemRepo.save(item);
+    }
+
+    private Booking makeBooking(Item item, Instant bookingStart, Status status) {
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStart(bookingStart);
+        booking.setEnd(bookingStart.plusSeconds(1800));
+        booking.setStatus(status);
+        return booking;
+    }
+
+    private User makeUser(String email) {
+        User user = new User();
+        user.setName("name");
+        user.setEmail(email);
+        return userRepo.save(user);
+    }
+}
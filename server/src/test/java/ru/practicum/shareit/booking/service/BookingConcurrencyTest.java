@@ -0,0 +1,131 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.error.exception.ValidationException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Одновременное подтверждение пересекающихся бронирований: у каждой вещи подтверждается ровно одно.
+ */
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class BookingConcurrencyTest {
+    private static final int ITEMS = 8;
+    private static final int BOOKINGS_PER_ITEM = 16;
+    private static final int THREADS = 16;
+
+    private final BookingService service;
+    private final BookingRepository repository;
+    private final ItemRepository itemRepo;
+    private final UserRepository userRepo;
+
+    private final List<User> users = new ArrayList<>();
+
+    @AfterEach
+    void clean() {
+        userRepo.deleteAll(users);
+    }
+
+    @Test
+    void approveOverlappingBookingsConcurrently() throws Exception {
+        User owner = makeUser("owner@concurrency.ru");
+        User booker = makeUser("booker@concurrency.ru");
+        Instant start = Instant.now().plus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            Item item = new Item();
+            item.setName("Дрель " + i);
+            item.setDescription("Дрель ударная");
+            item.setAvailable(true);
+            item.setOwner(owner);
+            item = itemRepo.save(item);
+            for (int j = 0; j < BOOKINGS_PER_ITEM; j++) {
+                // Каждое следующее бронирование пересекается с предыдущим
+                Booking booking = new Booking();
+                booking.setItem(item);
+                booking.setBooker(booker);
+                booking.setStart(start.plus(j, ChronoUnit.HOURS));
+                booking.setEnd(start.plus(j + 1, ChronoUnit.HOURS).plusSeconds(60));
+                booking.setStatus(Status.WAITING);
+                bookingIds.add(repository.save(booking).getId());
+            }
+        }
+        Collections.shuffle(bookingIds);
+
+        AtomicInteger approved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch ready = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (long bookingId : bookingIds) {
+            futures.add(executor.submit(() -> {
+                ready.await();
+                try {
+                    service.patch(owner.getId(), bookingId, true);
+                    approved.incrementAndGet();
+                } catch (ValidationException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        ready.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<Booking> approvedBookings = repository.findAllById(bookingIds).stream()
+                .filter(booking -> booking.getStatus() == Status.APPROVED)
+                .sorted(Comparator.comparing(Booking::getStart))
+                .collect(Collectors.toList());
+        assertEquals(approved.get(), approvedBookings.size());
+        assertEquals(bookingIds.size(), approved.get() + rejected.get());
+        for (int i = 0; i < approvedBookings.size(); i++) {
+            for (int j = i + 1; j < approvedBookings.size(); j++) {
+                Booking first = approvedBookings.get(i);
+                Booking second = approvedBookings.get(j);
+                boolean sameItem = first.getItem().getId().equals(second.getItem().getId());
+                boolean overlap = !first.getStart().isAfter(second.getEnd())
+                        && !second.getStart().isAfter(first.getEnd());
+                assertFalse(sameItem && overlap,
+                        String.format("Пересекаются бронирования %d и %d", first.getId(), second.getId()));
+            }
+        }
+    }
+
+    private User makeUser(String email) {
+        User user = new User();
+        user.setName("name");
+        user.setEmail(email);
+        user = userRepo.save(user);
+        users.add(user);
+        return user;
+    }
+}
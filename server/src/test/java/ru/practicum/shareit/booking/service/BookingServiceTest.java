@@ -6,15 +6,22 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.archive.ArchivedBooking;
+import ru.practicum.shareit.booking.archive.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.availability.BookingAvailability;
+import ru.practicum.shareit.booking.availability.BookingLocks;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingInDto;
 import ru.practicum.shareit.booking.dto.BookingOutDto;
 import ru.practicum.shareit.booking.enums.State;
 import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.event.BookingChangedEvent;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.error.exception.NotFoundException;
 import ru.practicum.shareit.error.exception.OwnerBookingException;
@@ -22,24 +29,33 @@ import ru.practicum.shareit.error.exception.UnsupportedStatusException;
 import ru.practicum.shareit.error.exception.ValidationException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserValidator;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class BookingServiceTest {
-    private static final Sort SORT = Sort.by(Sort.Direction.DESC, "start");
+    private static final Sort SORT = Sort.by(Sort.Direction.DESC, "start", "id");
     private static final Instant NOW = Instant.now();
     private static final ZoneId ZONE_ID = ZoneId.systemDefault();
 
@@ -47,11 +63,23 @@ class BookingServiceTest {
     BookingRepository repository;
 
     @Mock
-    private UserRepository userRepo;
+    private ArchivedBookingRepository archiveRepo;
+
+    @Mock
+    private UserValidator users;
 
     @Mock
     private ItemRepository itemRepo;
 
+    @Mock
+    private BookingAvailability availability;
+
+    @Mock
+    private BookingLocks locks;
+
+    @Mock
+    private ApplicationEventPublisher publisher;
+
     @InjectMocks
     BookingServiceImpl service;
 
@@ -111,7 +139,6 @@ class BookingServiceTest {
         //Fail No Rights
         long userId = user.getId();
         long bookingId = booking.getId();
-        when(userRepo.findById(userId)).thenReturn(Optional.of(user));
         when(repository.findById(bookingId)).thenReturn(Optional.of(booking));
         String error = String.format(
                 "Пользователь с id %d не может просматривать бронирование с id %d", userId, bookingId);
@@ -123,7 +150,6 @@ class BookingServiceTest {
 
         //Regular Case with owner
         long ownerId = owner.getId();
-        when(userRepo.findById(ownerId)).thenReturn(Optional.of(owner));
         when(repository.findById(bookingId)).thenReturn(Optional.of(booking));
         BookingOutDto bookingOutDto = service.findById(ownerId, bookingId);
         assertNotNull(bookingOutDto);
@@ -131,11 +157,28 @@ class BookingServiceTest {
 
         //Regular Case with booker
         long bookerId = owner.getId();
-        when(userRepo.findById(bookerId)).thenReturn(Optional.of(booker));
         when(repository.findById(bookingId)).thenReturn(Optional.of(booking));
         bookingOutDto = service.findById(bookerId, bookingId);
         assertNotNull(bookingOutDto);
         assertEquals(booking.getId(), bookingOutDto.getId());
+
+        //Archived
+        ArchivedBooking archived = new ArchivedBooking();
+        archived.setId(3L);
+        archived.setStart(booking.getStart());
+        archived.setEnd(booking.getEnd());
+        archived.setItem(item);
+        archived.setBooker(booker);
+        archived.setStatus(Status.APPROVED);
+        when(repository.findById(3L)).thenReturn(Optional.empty());
+        when(archiveRepo.findById(3L)).thenReturn(Optional.of(archived));
+        bookingOutDto = service.findById(bookerId, 3L);
+        assertEquals(3L, bookingOutDto.getId());
+        assertEquals(Status.APPROVED, bookingOutDto.getStatus());
+
+        //Not Found
+        when(archiveRepo.findById(3L)).thenReturn(Optional.empty());
+        assertThrows(NotFoundException.class, () -> service.findById(bookerId, 3L));
     }
 
     @Test
@@ -144,7 +187,6 @@ class BookingServiceTest {
         int size = 1;
         long userId = booker.getId();
         PageRequest page = PageRequest.of(0, size, SORT);
-        when(userRepo.findById(userId)).thenReturn(Optional.of(booker));
 
         //Fail By Wrong State
         String error = "Unknown state: UNSUPPORTED_STATUS";
@@ -154,68 +196,28 @@ class BookingServiceTest {
         );
         assertEquals(error, exception.getMessage());
 
-        //State All
-        when(repository.findByBookerId(userId, page)).thenReturn(new PageImpl<>(List.of(booking)));
-        List<BookingOutDto> bookingOutDtos = service.findByState(userId, State.ALL, from, size);
-
-        assertNotNull(bookingOutDtos);
-        assertEquals(1, bookingOutDtos.size());
-        assertEquals(booking.getId(), bookingOutDtos.get(0).getId());
-
-        //State PAST
-        when(repository.findByBookerIdAndEndIsBefore(anyLong(), any(), (Pageable) any())).thenReturn(new PageImpl<>(List.of(booking)));
-
-        bookingOutDtos = service.findByState(userId, State.PAST, from, size);
-
-        assertNotNull(bookingOutDtos);
-        assertEquals(1, bookingOutDtos.size());
-
-        //State CURRENT
-        booking.setEnd(NOW.plusSeconds(120));
-
-        when(repository.findByBookerIdAndStartIsBeforeAndEndIsAfter(anyLong(), any(), any(), (Pageable) any())).thenReturn(new PageImpl<>(List.of(booking)));
-
-        bookingOutDtos = service.findByState(userId, State.CURRENT, from, size);
-
-        assertNotNull(bookingOutDtos);
-        assertEquals(1, bookingOutDtos.size());
-
-        //State FUTURE
-        booking.setStart(NOW.plusSeconds(60));
-
-        when(repository.findByBookerIdAndStartIsAfter(anyLong(), any(), (Pageable) any())).thenReturn(new PageImpl<>(List.of(booking)));
-
-        bookingOutDtos = service.findByState(userId, State.FUTURE, from, size);
-
-        assertNotNull(bookingOutDtos);
-        assertEquals(1, bookingOutDtos.size());
-
-        //STATE WAITING
-        booking.setStatus(Status.WAITING);
-
-        when(repository.findByBookerIdAndStatus(anyLong(), any(), (Pageable) any())).thenReturn(new PageImpl<>(List.of(booking)));
-
-        bookingOutDtos = service.findByState(userId, State.WAITING, from, size);
-
-        assertNotNull(bookingOutDtos);
-        assertEquals(1, bookingOutDtos.size());
-
-        //SATE REJECTING
-        booking.setStatus(Status.REJECTED);
-
-        bookingOutDtos = service.findByState(userId, State.REJECTED, from, size);
-
-        assertNotNull(bookingOutDtos);
-        assertEquals(1, bookingOutDtos.size());
+        //Every State By One Query
+        when(repository.findSlice(any(), eq(page))).thenReturn(new SliceImpl<>(List.of(booking)));
+        when(repository.findSliceWithArchive(any(), anyLong(), any(), any(), any(), eq(page)))
+                .thenReturn(new SliceImpl<>(List.of(booking)));
+        for (State state : List.of(State.ALL, State.PAST, State.CURRENT, State.FUTURE, State.WAITING,
+                State.REJECTED)) {
+            List<BookingOutDto> bookingOutDtos = service.findByState(userId, state, from, size);
+            assertNotNull(bookingOutDtos);
+            assertEquals(1, bookingOutDtos.size());
+            assertEquals(booking.getId(), bookingOutDtos.get(0).getId());
+        }
+        // Текущие, будущие и ожидающие только в bookings, остальные вместе с архивом
+        verify(repository, times(3)).findSlice(any(), eq(page));
+        verify(repository, times(3)).findSliceWithArchive(any(), anyLong(), any(), any(), any(), eq(page));
     }
 
     @Test
     void findByOwnerItemsAndState() {
-        int from = 0;
-        int size = 1;
+        int from = 2;
+        int size = 2;
         long userId = owner.getId();
-        PageRequest page = PageRequest.of(0, size, SORT);
-        when(userRepo.findById(userId)).thenReturn(Optional.of(owner));
+        PageRequest page = PageRequest.of(1, size, SORT);
 
         //Fail By Wrong State
         String error = "Unknown state: UNSUPPORTED_STATUS";
@@ -225,59 +227,61 @@ class BookingServiceTest {
         );
         assertEquals(error, exception.getMessage());
 
-        //State ALL
-        when(repository.findByItemOwnerId(userId, page)).thenReturn(new PageImpl<>(List.of(booking)));
-
-        List<BookingOutDto> bookingOutDtos = service.findByOwnerItemsAndState(userId, State.ALL, from, size);
-
-        assertNotNull(bookingOutDtos);
-        assertEquals(1, bookingOutDtos.size());
-        assertEquals(booking.getId(), bookingOutDtos.get(0).getId());
-
-        //State PAST
-        when(repository.findByItemOwnerIdAndEndIsBefore(anyLong(), any(), (Pageable) any())).thenReturn(new PageImpl<>(List.of(booking)));
-
-        bookingOutDtos = service.findByOwnerItemsAndState(userId, State.PAST, from, size);
-
-        assertNotNull(bookingOutDtos);
-        assertEquals(1, bookingOutDtos.size());
-
-        //STATE CURRENT
-        booking.setEnd(NOW.plusSeconds(120));
-        when(repository.findByItemOwnerIdAndStartIsBeforeAndEndIsAfter(anyLong(), any(), any(), (Pageable) any()))
-                .thenReturn(new PageImpl<>(List.of(booking)));
-
-        bookingOutDtos = service.findByOwnerItemsAndState(userId, State.CURRENT, from, size);
-
-        assertNotNull(bookingOutDtos);
-        assertEquals(1, bookingOutDtos.size());
-
-        //State FUTURE
-        booking.setStart(NOW.plusSeconds(60));
-        when(repository.findByItemOwnerIdAndStartIsAfter(anyLong(), any(), (Pageable) any())).thenReturn(new PageImpl<>(List.of(booking)));
-
-        bookingOutDtos = service.findByOwnerItemsAndState(userId, State.FUTURE, from, size);
-
-        assertNotNull(bookingOutDtos);
-        assertEquals(1, bookingOutDtos.size());
-
-        //State WAITING
-        booking.setStatus(Status.WAITING);
-        when(repository.findByItemOwnerIdAndStatus(anyLong(), any(), (Pageable) any())).thenReturn(new PageImpl<>(List.of(booking)));
+        //Every State By One Query
+        when(repository.findSlice(any(), eq(page))).thenReturn(new SliceImpl<>(List.of(booking, booking2)));
+        when(repository.findSliceWithArchive(any(), anyLong(), any(), any(), any(), eq(page)))
+                .thenReturn(new SliceImpl<>(List.of(booking, booking2)));
+        for (State state : List.of(State.ALL, State.PAST, State.CURRENT, State.FUTURE, State.WAITING,
+                State.REJECTED)) {
+            List<BookingOutDto> bookingOutDtos = service.findByOwnerItemsAndState(userId, state, from, size);
+            assertNotNull(bookingOutDtos);
+            assertEquals(2, bookingOutDtos.size());
+        }
+        verify(repository, times(3)).findSlice(any(), eq(page));
+        verify(repository, times(3)).findSliceWithArchive(any(), anyLong(), any(), any(), any(), eq(page));
+    }
 
-        bookingOutDtos = service.findByOwnerItemsAndState(userId, State.WAITING, from, size);
+    @Test
+    void findByStateAfter() {
+        int size = 1;
+        long userId = booker.getId();
+        PageRequest firstPage = PageRequest.of(0, size, SORT);
 
-        assertNotNull(bookingOutDtos);
-        assertEquals(1, bookingOutDtos.size());
+        //Fail By Wrong Cursor
+        assertThrows(ValidationException.class, () -> service.findByStateAfter(userId, State.ALL, "!", size));
+        String keyless = Cursor.of(booking.getId()).encode();
+        assertThrows(ValidationException.class, () -> service.findByStateAfter(userId, State.ALL, keyless, size));
 
-        //State REJECT
-        booking.setStatus(Status.REJECTED);
-        when(repository.findByItemOwnerIdAndStatus(anyLong(), any(), (Pageable) any())).thenReturn(new PageImpl<>(List.of(booking)));
+        //Fail By Wrong State
+        assertThrows(UnsupportedStatusException.class,
+                () -> service.findByStateAfter(userId, State.UNKNOWN, "", size));
+
+        //First Page
+        when(repository.findSlice(any(), eq(firstPage))).thenReturn(new SliceImpl<>(List.of(booking)));
+        when(repository.findSliceWithArchive(any(), anyLong(), any(), any(), any(), eq(firstPage)))
+                .thenReturn(new SliceImpl<>(List.of(booking), firstPage, true));
+        CursorPage<BookingOutDto> page = service.findByStateAfter(userId, State.ALL, "", size);
+        assertEquals(1, page.getContent().size());
+        assertEquals(Cursor.of(booking.getStart(), booking.getId()).encode(), page.getNextCursor());
+
+        //Next Page
+        for (State state : List.of(State.PAST, State.FUTURE, State.CURRENT, State.WAITING, State.REJECTED)) {
+            service.findByStateAfter(userId, state, page.getNextCursor(), size);
+        }
+        verify(repository, times(3)).findSlice(any(), eq(firstPage));
+        verify(repository, times(3)).findSliceWithArchive(any(), anyLong(), any(), any(), any(), eq(firstPage));
+    }
 
-        bookingOutDtos = service.findByOwnerItemsAndState(userId, State.REJECTED, from, size);
+    @Test
+    void findByOwnerItemsAndStateAfter() {
+        int size = 2;
+        long userId = owner.getId();
+        when(repository.findSlice(any(), eq(PageRequest.of(0, size, SORT))))
+                .thenReturn(new SliceImpl<>(List.of(booking)));
 
-        assertNotNull(bookingOutDtos);
-        assertEquals(1, bookingOutDtos.size());
+        CursorPage<BookingOutDto> page = service.findByOwnerItemsAndStateAfter(userId, State.WAITING, "", size);
+        assertEquals(1, page.getContent().size());
+        assertNull(page.getNextCursor());
     }
 
     @Test
@@ -293,7 +297,7 @@ class BookingServiceTest {
                 .end(end)
                 .build();
 
-        when(userRepo.findById(ownerId)).thenReturn(Optional.of(owner));
+        when(users.getReference(ownerId)).thenReturn(owner);
         when(itemRepo.findById(itemId)).thenReturn(Optional.of(item));
         String error = String.format("Пользователь с id %d владелец вещи с id %d", ownerId, itemId);
         OwnerBookingException exception = assertThrows(
@@ -304,7 +308,7 @@ class BookingServiceTest {
         //Fail By Item Isn't available
         item.setAvailable(false);
         long bookerId = booker.getId();
-        when(userRepo.findById(bookerId)).thenReturn(Optional.of(booker));
+        when(users.getReference(bookerId)).thenReturn(booker);
         when(itemRepo.findById(itemId)).thenReturn(Optional.of(item));
         error = String.format("Вещь с id %d  недоступна для бронирования", itemId);
         ValidationException ex = assertThrows(
@@ -312,15 +316,79 @@ class BookingServiceTest {
                 () -> service.add(bookerId, bookingToSave));
         assertEquals(error, ex.getMessage());
 
-        //Regular case
+        //Fail By Time Isn't Free
         item.setAvailable(true);
-        when(repository.findBookingsAtSameTime(1L, Status.APPROVED, booking.getStart(), booking.getEnd()))
-                .thenReturn(Collections.emptyList());
+        when(availability.isFree(itemId, booking.getStart(), booking.getEnd())).thenReturn(false);
+        ex = assertThrows(
+                ValidationException.class,
+                () -> service.add(bookerId, bookingToSave));
+        assertEquals("Время для аренды недоступно", ex.getMessage());
+
+        //Regular case
+        when(availability.isFree(itemId, booking.getStart(), booking.getEnd())).thenReturn(true);
         when(repository.save(any())).thenReturn(booking);
         BookingOutDto bookingOutDto = service.add(bookerId, bookingToSave);
 
         assertNotNull(bookingOutDto);
         assertEquals(booking.getId(), bookingOutDto.getId());
+        verify(locks, times(2)).lockItem(itemId);
+        verify(publisher).publishEvent(BookingChangedEvent.of(booking, itemId));
+    }
+
+    @Test
+    void addAll() {
+        long bookerId = booker.getId();
+        Item ownItem = new Item();
+        ownItem.setId(3L);
+        ownItem.setAvailable(true);
+        ownItem.setOwner(booker);
+        Item unavailable = new Item();
+        unavailable.setId(4L);
+        unavailable.setAvailable(false);
+        unavailable.setOwner(owner);
+        List<BookingInDto> bookingDtos = List.of(
+                bookingInDto(item.getId(), NOW.plusSeconds(3600), NOW.plusSeconds(7200)),
+                bookingInDto(item.getId(), NOW.minusSeconds(100), NOW.plusSeconds(10)),
+                bookingInDto(99L, NOW.plusSeconds(3600), NOW.plusSeconds(7200)),
+                bookingInDto(ownItem.getId(), NOW.plusSeconds(3600), NOW.plusSeconds(7200)),
+                bookingInDto(unavailable.getId(), NOW.plusSeconds(3600), NOW.plusSeconds(7200)));
+        Set<Long> itemIds = Set.of(item.getId(), 99L, ownItem.getId(), unavailable.getId());
+        when(users.getReference(bookerId)).thenReturn(booker);
+        when(itemRepo.findAllById(itemIds)).thenReturn(List.of(item, ownItem, unavailable));
+        when(repository.findByItemIdInAndStatusOverlapping(eq(Set.of(item.getId(), ownItem.getId(),
+                unavailable.getId())), eq(Status.APPROVED), any(), any())).thenReturn(List.of(booking));
+
+        //All Or Nothing
+        List<BookingBatchResultDto> results = service.addAll(bookerId, bookingDtos, true);
+        assertEquals(List.of("Пакет не создан из-за ошибок в других бронированиях",
+                        "Время для аренды недоступно",
+                        "Вещь с id 99 не найдена",
+                        String.format("Пользователь с id %d владелец вещи с id 3", bookerId),
+                        "Вещь с id 4  недоступна для бронирования"),
+                results.stream().map(BookingBatchResultDto::getError).collect(Collectors.toList()));
+        verify(repository, never()).saveAll(any());
+        verify(publisher, never()).publishEvent(any());
+
+        //Partial Success
+        when(repository.saveAll(any())).thenAnswer(invocation -> {
+            List<Booking> saved = invocation.getArgument(0);
+            saved.forEach(savedBooking -> savedBooking.setId(10L));
+            return saved;
+        });
+        results = service.addAll(bookerId, bookingDtos, false);
+        assertEquals(5, results.size());
+        assertNull(results.get(0).getError());
+        assertEquals(10L, results.get(0).getBooking().getId());
+        assertEquals(Status.WAITING, results.get(0).getBooking().getStatus());
+        assertEquals(bookerId, results.get(0).getBooking().getBooker().getId());
+        assertEquals("Время для аренды недоступно", results.get(1).getError());
+        assertNull(results.get(1).getBooking());
+        verify(publisher).publishEvent(any(BookingChangedEvent.class));
+        verify(locks, times(2)).lockItems(Set.of(item.getId(), ownItem.getId(), unavailable.getId()));
+
+        //Empty Batch
+        when(itemRepo.findAllById(Set.of())).thenReturn(List.of());
+        assertEquals(0, service.addAll(bookerId, List.of(), true).size());
     }
 
     @Test
@@ -329,7 +397,6 @@ class BookingServiceTest {
         long userId = owner.getId();
         long bookingId = booking.getId();
 
-        when(userRepo.findById(userId)).thenReturn(Optional.of(owner));
         when(repository.findById(bookingId)).thenReturn(Optional.of(booking));
 
         String error = String.format("Бронирование с id %d уже подтверждено", bookingId);
@@ -340,10 +407,120 @@ class BookingServiceTest {
         assertEquals(error, exception.getMessage());
 
         //Regular Case
-        when(repository.save(any())).thenReturn(booking);
+        when(repository.saveAndFlush(any())).thenReturn(booking);
 
         BookingOutDto bookingOutDto = service.patch(userId, bookingId, false);
         assertNotNull(bookingOutDto);
         assertEquals(booking.getId(), bookingOutDto.getId());
+        verify(publisher).publishEvent(BookingChangedEvent.of(booking, item.getId()));
+
+        //Fail By Time Isn't Free
+        long itemId = item.getId();
+        when(availability.isFree(itemId, booking.getStart(), booking.getEnd())).thenReturn(false);
+        exception = assertThrows(
+                ValidationException.class,
+                () -> service.patch(userId, bookingId, true)
+        );
+        assertEquals("Время для аренды недоступно", exception.getMessage());
+        verify(locks).lockItem(itemId);
+
+        //Fail By Exclusion Constraint
+        booking.setStatus(Status.WAITING);
+        when(availability.isFree(itemId, booking.getStart(), booking.getEnd())).thenReturn(true);
+        when(repository.saveAndFlush(any())).thenThrow(
+                new DataIntegrityViolationException("violates exclusion constraint \"ex_bookings_approved_overlap\""));
+        exception = assertThrows(
+                ValidationException.class,
+                () -> service.patch(userId, bookingId, true)
+        );
+        assertEquals("Время для аренды недоступно", exception.getMessage());
+
+        //Fail By Other Constraint
+        booking.setStatus(Status.WAITING);
+        doThrow(new DataIntegrityViolationException("fk_bookings_to_items")).when(repository).saveAndFlush(any());
+        assertThrows(
+                DataIntegrityViolationException.class,
+                () -> service.patch(userId, bookingId, true)
+        );
+    }
+
+    @Test
+    void patchAll() {
+        long userId = owner.getId();
+        Set<Long> ids = Set.of(booking.getId(), booking2.getId());
+        List<Long> bookingIds = List.of(booking.getId(), booking2.getId());
+        when(repository.findWithItemAndBookerByIdIn(ids)).thenReturn(List.of(booking, booking2));
+
+        //Fail By Not Found
+        when(repository.findWithItemAndBookerByIdIn(Set.of(booking.getId(), 99L))).thenReturn(List.of(booking));
+        NotFoundException notFound = assertThrows(
+                NotFoundException.class,
+                () -> service.patchAll(userId, List.of(booking.getId(), 99L), true)
+        );
+        assertEquals("Бронирование с id 99 не найдено", notFound.getMessage());
+
+        //Fail By Not Owner
+        notFound = assertThrows(
+                NotFoundException.class,
+                () -> service.patchAll(user.getId(), bookingIds, true)
+        );
+        assertEquals(String.format("Пользователь с id %d не владеет вещью с id %d", user.getId(), item.getId()),
+                notFound.getMessage());
+
+        //Fail By Status
+        booking.setStatus(Status.WAITING);
+        booking2.setStatus(Status.REJECTED);
+        ValidationException exception = assertThrows(
+                ValidationException.class,
+                () -> service.patchAll(userId, bookingIds, false)
+        );
+        assertEquals(String.format("Бронирование с id %d уже отклонено", booking2.getId()), exception.getMessage());
+
+        //Fail By Overlapping Each Other
+        booking2.setStatus(Status.WAITING);
+        when(availability.isFree(item.getId(), booking.getStart(), booking.getEnd())).thenReturn(true);
+        exception = assertThrows(
+                ValidationException.class,
+                () -> service.patchAll(userId, bookingIds, true)
+        );
+        assertEquals("Время для аренды недоступно", exception.getMessage());
+
+        //Fail By Exclusion Constraint
+        booking2.setStart(booking.getEnd().plusSeconds(1));
+        booking2.setEnd(booking.getEnd().plusSeconds(60));
+        when(availability.isFree(item.getId(), booking2.getStart(), booking2.getEnd())).thenReturn(true);
+        when(repository.updateStatus(ids, Status.WAITING, Status.APPROVED)).thenThrow(
+                new DataIntegrityViolationException("violates exclusion constraint \"ex_bookings_approved_overlap\""));
+        exception = assertThrows(
+                ValidationException.class,
+                () -> service.patchAll(userId, bookingIds, true)
+        );
+        assertEquals("Время для аренды недоступно", exception.getMessage());
+
+        //Fail By Concurrent Change
+        when(repository.updateStatus(ids, Status.WAITING, Status.REJECTED)).thenReturn(1);
+        exception = assertThrows(
+                ValidationException.class,
+                () -> service.patchAll(userId, bookingIds, false)
+        );
+        assertEquals("Статус части бронирований уже изменён", exception.getMessage());
+
+        //Regular Case
+        doReturn(2).when(repository).updateStatus(ids, Status.WAITING, Status.APPROVED);
+        List<BookingOutDto> bookingDtos = service.patchAll(userId, bookingIds, true);
+        assertEquals(bookingIds, bookingDtos.stream().map(BookingOutDto::getId).collect(Collectors.toList()));
+        assertTrue(bookingDtos.stream().allMatch(bookingDto -> bookingDto.getStatus() == Status.APPROVED));
+        assertEquals(Status.WAITING, booking.getStatus());
+        verify(publisher).publishEvent(new BookingChangedEvent(booking2.getId(), item.getId(), booking2.getStart(),
+                booking2.getEnd(), Status.APPROVED));
+        verify(locks, times(5)).lockItems(Set.of(item.getId()));
+    }
+
+    private static BookingInDto bookingInDto(long itemId, Instant start, Instant end) {
+        return BookingInDto.builder()
+                .itemId(itemId)
+                .start(LocalDateTime.ofInstant(start, ZONE_ID))
+                .end(LocalDateTime.ofInstant(end, ZONE_ID))
+                .build();
     }
-}
\ No newline at end of file
+}
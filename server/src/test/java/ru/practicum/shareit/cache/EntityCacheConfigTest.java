@@ -0,0 +1,106 @@
+package ru.practicum.shareit.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.archive.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class EntityCacheConfigTest {
+    private final UserRepository userRepo;
+    private final ItemRepository itemRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry registry;
+    private final BookingRepository bookingRepo;
+    private final ArchivedBookingRepository archiveRepo;
+    private final EntityManagerFactory emf;
+
+    @Test
+    void cachesUsersAndItems() {
+        User user = new User();
+        user.setName("cached");
+        user.setEmail("cached@mail.ru");
+        User saved = userRepo.save(user);
+        Item item = new Item();
+        item.setName("Дрель");
+        item.setDescription("Дрель аккумуляторная");
+        item.setAvailable(true);
+        item.setOwner(saved);
+        Item savedItem = itemRepo.save(item);
+
+        double userHits = hits(EntityCacheConfig.USERS);
+        double emailHits = hits(EntityCacheConfig.USERS_BY_EMAIL);
+        double itemHits = hits(EntityCacheConfig.ITEMS);
+        for (int i = 0; i < 2; i++) {
+            // Каждый раз новая сессия: повторное чтение обслуживает кэш второго уровня, а не первого
+            transactionTemplate.executeWithoutResult(status -> {
+                assertEquals("cached", userRepo.findById(saved.getId()).orElseThrow().getName());
+                assertEquals(saved.getId(), userRepo.findByEmail("cached@mail.ru").orElseThrow().getId());
+                assertEquals(saved.getId(), itemRepo.findById(savedItem.getId()).orElseThrow().getOwner().getId());
+            });
+        }
+        assertTrue(hits(EntityCacheConfig.USERS) > userHits);
+        assertTrue(hits(EntityCacheConfig.USERS_BY_EMAIL) > emailHits);
+        assertTrue(hits(EntityCacheConfig.ITEMS) > itemHits);
+
+        //Changed Email
+        transactionTemplate.executeWithoutResult(status ->
+                userRepo.findById(saved.getId()).orElseThrow().setEmail("changed@mail.ru"));
+        assertTrue(userRepo.findByEmail("cached@mail.ru").isEmpty());
+        assertEquals(saved.getId(), userRepo.findByEmail("changed@mail.ru").orElseThrow().getId());
+    }
+
+    @Test
+    void keepsUsersWhenArchivingBookings() {
+        User user = new User();
+        user.setName("archived");
+        user.setEmail("archived@mail.ru");
+        User saved = userRepo.save(user);
+        Item item = new Item();
+        item.setName("Пила");
+        item.setDescription("Пила ручная");
+        item.setAvailable(true);
+        item.setOwner(saved);
+        Item savedItem = itemRepo.save(item);
+        Booking booking = new Booking();
+        booking.setItem(savedItem);
+        booking.setBooker(saved);
+        booking.setStart(Instant.now().minus(400, ChronoUnit.DAYS));
+        booking.setEnd(booking.getStart().plusSeconds(1800));
+        booking.setStatus(Status.APPROVED);
+        List<Long> ids = List.of(bookingRepo.save(booking).getId());
+        transactionTemplate.executeWithoutResult(status -> userRepo.findById(saved.getId()).orElseThrow());
+        assertTrue(emf.getCache().contains(User.class, saved.getId()));
+
+        //Archive
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(1, archiveRepo.copyFromBookings(ids));
+            assertEquals(1, bookingRepo.deleteByIds(ids));
+        });
+        assertTrue(emf.getCache().contains(User.class, saved.getId()));
+        assertTrue(emf.getCache().contains(Item.class, savedItem.getId()));
+    }
+
+    private double hits(String region) {
+        return registry.get("cache.gets").tag("cache", region).tag("result", "hit").functionCounter().count();
+    }
+}
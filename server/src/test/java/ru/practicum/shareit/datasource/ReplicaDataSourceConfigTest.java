@@ -0,0 +1,103 @@
+package ru.practicum.shareit.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReplicaDataSourceConfigTest {
+    private static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withUserConfiguration(Properties.class, ReplicaDataSourceConfig.class)
+            .withPropertyValues(
+                    "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+                    "spring.datasource.username=test",
+                    "spring.datasource.password=test");
+
+    @Test
+    void withoutReplicas() {
+        runner.run(context -> assertEquals(0, context.getBeansOfType(DataSource.class).size()));
+    }
+
+    @Test
+    void routesReadOnlyTransactionsToReplica() {
+        runner.withPropertyValues("shareit.datasource.replicas.urls=" + REPLICA_URL)
+                .run(context -> {
+                    // Реплика — отдельная база H2, в которой та же таблица заполнена по-другому
+                    fillMarks(new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "test", "test")),
+                            "replica");
+                    DataSource dataSource = context.getBean(DataSource.class);
+                    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+                    fillMarks(jdbcTemplate, "primary");
+
+                    TransactionTemplate transactionTemplate = new TransactionTemplate(
+                            new DataSourceTransactionManager(dataSource));
+                    assertEquals("primary", transactionTemplate.execute(status -> readMark(jdbcTemplate)));
+                    transactionTemplate.setReadOnly(true);
+                    assertEquals("replica", transactionTemplate.execute(status -> readMark(jdbcTemplate)));
+                });
+    }
+
+    @Test
+    void primaryReadsIgnoreLaggingReplica() {
+        runner.withPropertyValues("shareit.datasource.replicas.urls=" + REPLICA_URL)
+                .run(context -> {
+                    // Реплика ещё не получила последнюю запись основной базы
+                    fillMarks(new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "test", "test")),
+                            "stale");
+                    DataSource dataSource = context.getBean(DataSource.class);
+                    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+                    fillMarks(jdbcTemplate, "fresh");
+                    DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+                    PrimaryReads primaryReads = new PrimaryReads(transactionManager,
+                            context.getBeanProvider(ReplicaRoutingDataSource.class));
+                    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+                    transactionTemplate.setReadOnly(true);
+
+                    //Read Only Transaction Already On Replica
+                    assertEquals(List.of("stale", "fresh", "fresh"), transactionTemplate.execute(status -> List.of(
+                            readMark(jdbcTemplate),
+                            primaryReads.read(() -> readMark(jdbcTemplate)),
+                            primaryReads.read(() -> primaryReads.read(() -> readMark(jdbcTemplate))))));
+
+                    //Without Transaction
+                    assertEquals("fresh", primaryReads.read(() -> readMark(jdbcTemplate)));
+
+                    //Writing Transaction Is On Primary
+                    transactionTemplate.setReadOnly(false);
+                    assertEquals("fresh", transactionTemplate.execute(status ->
+                            primaryReads.read(() -> readMark(jdbcTemplate))));
+                });
+    }
+
+    @Test
+    void primaryReadsWithoutReplicas() {
+        assertEquals("loaded", new PrimaryReads().read(() -> "loaded"));
+    }
+
+    private static void fillMarks(JdbcTemplate jdbcTemplate, String source) {
+        jdbcTemplate.execute("create table if not exists marks (source varchar(16))");
+        jdbcTemplate.execute("delete from marks");
+        jdbcTemplate.update("insert into marks values (?)", source);
+    }
+
+    private static String readMark(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("select source from marks", String.class);
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(DataSourceProperties.class)
+    static class Properties {
+    }
+}
@@ -0,0 +1,129 @@
+package ru.practicum.shareit.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.withSettings;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final ReadYourWrites readYourWrites = new ReadYourWrites(Duration.ofSeconds(5), nanoTime::get);
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica1;
+
+    @Mock
+    private DataSource replica2;
+
+    @AfterEach
+    void cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void routesReadOnlyTransactionsToReplicas() {
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(replica1, replica2),
+                readYourWrites);
+
+        //Without Transaction
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, dataSource.determineCurrentLookupKey());
+
+        //Read Only Round Robin
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals("replica-0", dataSource.determineCurrentLookupKey());
+        assertEquals("replica-1", dataSource.determineCurrentLookupKey());
+        assertEquals("replica-0", dataSource.determineCurrentLookupKey());
+
+        //No Replicas
+        ReplicaRoutingDataSource primaryOnly = new ReplicaRoutingDataSource(primary, List.of(), readYourWrites);
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, primaryOnly.determineCurrentLookupKey());
+    }
+
+    @Test
+    void readsOwnWritesFromPrimary() {
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(replica1),
+                readYourWrites);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(ReplicaRoutingDataSource.USER_HEADER, "1");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        //Write Without Commit
+        TransactionSynchronizationManager.initSynchronization();
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, dataSource.determineCurrentLookupKey());
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals("replica-0", dataSource.determineCurrentLookupKey());
+
+        //After Commit
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, dataSource.determineCurrentLookupKey());
+
+        //Other User
+        request.removeHeader(ReplicaRoutingDataSource.USER_HEADER);
+        request.addHeader(ReplicaRoutingDataSource.USER_HEADER, "2");
+        assertEquals("replica-0", dataSource.determineCurrentLookupKey());
+
+        //Window Is Over
+        request.removeHeader(ReplicaRoutingDataSource.USER_HEADER);
+        request.addHeader(ReplicaRoutingDataSource.USER_HEADER, "1");
+        nanoTime.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertEquals("replica-0", dataSource.determineCurrentLookupKey());
+
+        //Wrong Header
+        request.removeHeader(ReplicaRoutingDataSource.USER_HEADER);
+        request.addHeader(ReplicaRoutingDataSource.USER_HEADER, "qwerty");
+        assertEquals("replica-0", dataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void readYourWritesDisabled() {
+        ReadYourWrites disabled = new ReadYourWrites(Duration.ZERO);
+        disabled.recordWrite(1L);
+        assertFalse(disabled.isEnabled());
+        assertFalse(disabled.wroteRecently(1L));
+    }
+
+    @Test
+    void readYourWritesPurgesExpired() {
+        for (long userId = 0; userId <= 1025; userId++) {
+            readYourWrites.recordWrite(userId);
+        }
+        nanoTime.addAndGet(Duration.ofSeconds(6).toNanos());
+        readYourWrites.recordWrite(2000L);
+        assertFalse(readYourWrites.wroteRecently(0L));
+        assertTrue(readYourWrites.wroteRecently(2000L));
+    }
+
+    @Test
+    void closesPools() throws IOException {
+        DataSource pool = mock(DataSource.class, withSettings().extraInterfaces(java.io.Closeable.class));
+        new ReplicaRoutingDataSource(primary, List.of(pool), readYourWrites).close();
+        verify((java.io.Closeable) pool).close();
+    }
+}
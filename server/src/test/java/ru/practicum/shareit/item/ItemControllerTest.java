@@ -10,10 +10,13 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.error.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemBookingCommentsDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.CursorPage;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -87,7 +90,48 @@ class ItemControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.size()", is(1)))
                 .andExpect(jsonPath("$[0].id", is(itemDto.getId()), Long.class))
-                .andExpect(jsonPath("$[0].name", is(itemDto.getName()), String.class));
+                .andExpect(jsonPath("$[0].name", is(itemDto.getName()), String.class))
+                .andExpect(jsonPath("$[0].score").doesNotExist());
+
+        // Ranked
+        ItemDto rankedDto = itemDtoBuilder.id(1L).name("Отвертка").score(2.5).build();
+        when(service.findByTextRanked("ОтВ", 0, 1)).thenReturn(List.of(rankedDto));
+        mvc.perform(get(URL + "/search")
+                        .param("text", "ОтВ")
+                        .param("from", "0")
+                        .param("size", "1")
+                        .param("ranked", "true"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(rankedDto.getId()), Long.class))
+                .andExpect(jsonPath("$[0].score", is(2.5)));
+    }
+
+    @Test
+    void shouldFindAfterCursor() throws Exception {
+        ItemBookingCommentsDto itemDto = itemBookingCommentsDtoBuilder.id(1L).build();
+        when(service.findAllByUserIdAfter(1L, "", 1)).thenReturn(new CursorPage<>(List.of(itemDto), "next"));
+        mvc.perform(get(URL)
+                        .header("X-Sharer-User-Id", 1)
+                        .param("from", "0")
+                        .param("size", "1")
+                        .param("cursor", ""))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        ItemDto foundDto = itemDtoBuilder.id(2L).build();
+        when(service.findByTextAfter("отв", "next", 1)).thenReturn(new CursorPage<>(List.of(foundDto), null));
+        mvc.perform(get(URL + "/search")
+                        .param("text", "отв")
+                        .param("from", "0")
+                        .param("size", "1")
+                        .param("cursor", "next"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CursorPage.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$[0].id", is(2)));
     }
 
     @Test
@@ -141,6 +185,39 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$[0].name", is(itemDto.getName()), String.class));
     }
 
+    @Test
+    void shouldFindAvailability() throws Exception {
+        LocalDate from = LocalDate.of(2023, 5, 1);
+        LocalDate to = LocalDate.of(2023, 5, 7);
+        when(service.findAvailability(1L, 1L, from, to)).thenReturn(ItemAvailabilityDto.builder()
+                .itemId(1L)
+                .from(from)
+                .to(to)
+                .bookedDays(List.of(LocalDate.of(2023, 5, 2)))
+                .build());
+        mvc.perform(get(URL + "/1/availability")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("from", "2023-05-01")
+                        .param("to", "2023-05-07"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId", is(1)))
+                .andExpect(jsonPath("$.from", is("2023-05-01")))
+                .andExpect(jsonPath("$.bookedDays", hasSize(1)))
+                .andExpect(jsonPath("$.bookedDays[0]", is("2023-05-02")));
+    }
+
+    @Test
+    void shouldSuggestNames() throws Exception {
+        when(service.suggestNames("Дре", SIZE_DEFAULT)).thenReturn(List.of("Дрель", "Дрель-миксер"));
+        mvc.perform(get(URL + "/suggest")
+                        .param("prefix", "Дре"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0]", is("Дрель")));
+    }
+
     @Test
     void shouldAdd() throws Exception {
         //addRegular
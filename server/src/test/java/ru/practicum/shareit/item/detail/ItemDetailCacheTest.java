@@ -0,0 +1,132 @@
+package ru.practicum.shareit.item.detail;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.BookingForItemsOutDto;
+import ru.practicum.shareit.datasource.PrimaryReads;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemBookingCommentsDto;
+import ru.practicum.shareit.item.event.CommentAddedEvent;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemDetailCacheTest {
+    private MeterRegistry registry;
+    private ItemDetailCache cache;
+    private AtomicInteger loads;
+    private AtomicLong now;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        now = new AtomicLong();
+        cache = new ItemDetailCache(new PrimaryReads(), registry, 2, Duration.ofSeconds(60), now::get);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void get() {
+        assertEquals(1L, load(1L).getItem().getId());
+        assertEquals(1L, load(1L).getItem().getId());
+        assertEquals(1, loads.get());
+
+        load(2L);
+        assertEquals(2, loads.get());
+        assertEquals(1.0, registry.get("cache.gets").tag("result", "hit").counter().count());
+        assertEquals(2.0, registry.get("cache.gets").tag("result", "miss").counter().count());
+        assertEquals(2.0, registry.get("cache.size").gauge().value());
+    }
+
+    @Test
+    void returnIndependentCopies() {
+        ItemDetail first = load(1L);
+        first.getItem().setLastBooking(BookingForItemsOutDto.builder().id(1L).build());
+        first.getItem().addComment(CommentDto.builder().id(2L).build());
+
+        ItemDetail second = load(1L);
+        assertEquals(1, loads.get());
+        assertNull(second.getItem().getLastBooking());
+        assertEquals(1, second.getItem().getComments().size());
+        assertEquals(10L, second.getOwnerId());
+
+        second.getItem().setLastBooking(BookingForItemsOutDto.builder().id(3L).build());
+        assertNull(load(1L).getItem().getLastBooking());
+    }
+
+    @Test
+    void expireAfterTtl() {
+        load(1L);
+        now.addAndGet(Duration.ofSeconds(59).toNanos());
+        load(1L);
+        assertEquals(1, loads.get());
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        load(1L);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evictLeastRecentlyUsed() {
+        load(1L);
+        load(2L);
+        load(1L);
+        load(3L);
+        assertEquals(3, loads.get());
+
+        load(1L);
+        assertEquals(3, loads.get());
+        load(2L);
+        assertEquals(4, loads.get());
+        assertEquals(2.0, registry.get("cache.evictions").counter().count());
+    }
+
+    @Test
+    void invalidateChangedItem() {
+        load(1L);
+        load(2L);
+        cache.onItemChanged(new ItemChangedEvent(1L, 10L, "Дрель", "Дрель ударная", true, false));
+        assertEquals(1, cache.itemCount());
+
+        cache.onCommentAdded(new CommentAddedEvent(2L));
+        assertEquals(0, cache.itemCount());
+    }
+
+    @Test
+    void onUserDeleted() {
+        load(1L);
+        load(2L);
+        cache.onUserDeleted(new UserDeletedEvent(10L));
+        assertEquals(0, cache.itemCount());
+    }
+
+    @Test
+    void skipPutWhenChangedDuringLoading() {
+        cache.get(1L, itemId -> {
+            cache.onCommentAdded(new CommentAddedEvent(itemId));
+            return detail(itemId);
+        });
+        assertEquals(0, cache.itemCount());
+    }
+
+    private ItemDetail load(long itemId) {
+        return cache.get(itemId, id -> {
+            loads.incrementAndGet();
+            return detail(id);
+        });
+    }
+
+    private static ItemDetail detail(long itemId) {
+        ItemBookingCommentsDto item = ItemBookingCommentsDto.builder().id(itemId).name("Дрель")
+                .description("Дрель ударная").available(true).build();
+        item.addComment(CommentDto.builder().id(1L).text("Хорошая").authorName("Анна").build());
+        return new ItemDetail(10L, item);
+    }
+}
@@ -31,12 +31,13 @@ class ItemDtoTest {
 
     @Test
     void testItemSerialization() throws Exception {
-        ItemDto itemDto = new ItemDto(id, name, description, available, requestId);
+        ItemDto itemDto = new ItemDto(id, name, description, available, requestId, null);
         JsonContent<ItemDto> result = json.write(itemDto);
 
         assertThat(result).extractingJsonPathStringValue("$.name").isEqualTo(name);
         assertThat(result).extractingJsonPathStringValue("$.description").isEqualTo(description);
         assertThat(result).extractingJsonPathBooleanValue("$.available").isEqualTo(available);
+        assertThat(result).doesNotHaveJsonPath("$.score");
     }
 
     @Test
@@ -6,7 +6,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchView;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
@@ -16,7 +18,9 @@ import javax.persistence.TypedQuery;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 class ItemRepositoryTest {
@@ -94,17 +98,21 @@ class ItemRepositoryTest {
         item1.setDescription("Дрель — ваш ответ соседям с перфоратором");
         repository.save(item1);
 
-        items = repository.findByOwnerId(owner.getId(), page).getContent();
+        Slice<Item> slice = repository.findByOwnerId(owner.getId(), page);
+        items = slice.getContent();
         assertNotNull(items);
         assertEquals(1, items.size());
         assertEquals(item.getId(), items.get(0).getId());
+        assertTrue(slice.hasNext());
 
         pageNum = 1;
         page = PageRequest.of(pageNum, size);
-        items = repository.findByOwnerId(owner.getId(), page).getContent();
+        slice = repository.findByOwnerId(owner.getId(), page);
+        items = slice.getContent();
         assertNotNull(items);
         assertEquals(1, items.size());
         assertEquals(item1.getId(), items.get(0).getId());
+        assertFalse(slice.hasNext());
     }
 
     @Test
@@ -154,6 +162,68 @@ class ItemRepositoryTest {
         assertEquals(2, itemsSearch.size());
     }
 
+    @Test
+    void findSearchViewsAfter() {
+        Item unavailable = new Item();
+        unavailable.setOwner(owner);
+        unavailable.setAvailable(false);
+        unavailable.setName("Дрель");
+        unavailable.setDescription("Сломана");
+        repository.save(unavailable);
+
+        List<ItemSearchView> views = repository.findSearchViewsAfter(0L, PageRequest.of(0, 10));
+        assertEquals(1, views.size());
+        assertEquals(item.getId(), views.get(0).getId());
+        assertEquals(owner.getId(), views.get(0).getOwnerId());
+        assertEquals(item.getName(), views.get(0).getName());
+        assertEquals(item.getDescription(), views.get(0).getDescription());
+
+        views = repository.findSearchViewsAfter(item.getId(), PageRequest.of(0, 10));
+        assertEquals(0, views.size());
+    }
+
+    @Test
+    void findByOwnerIdAfterAndSearchAfter() {
+        Item item1 = new Item();
+        item1.setOwner(owner);
+        item1.setAvailable(true);
+        item1.setName("Набор бит");
+        item1.setDescription("Биты для шуруповерта");
+        item1 = repository.save(item1);
+        PageRequest page = PageRequest.of(0, 1);
+
+        List<Item> items = repository.findByOwnerIdAndIdGreaterThanOrderById(owner.getId(), 0, page);
+        assertEquals(List.of(item), items);
+        items = repository.findByOwnerIdAndIdGreaterThanOrderById(owner.getId(), item.getId(), page);
+        assertEquals(List.of(item1), items);
+
+        items = repository.searchAfter("набор", 0, page);
+        assertEquals(List.of(item), items);
+        items = repository.searchAfter("набор", item.getId(), page);
+        assertEquals(List.of(item1), items);
+        items = repository.searchAfter("набор", item1.getId(), page);
+        assertEquals(0, items.size());
+    }
+
+    @Test
+    void findNamesByPrefix() {
+        Item item1 = new Item();
+        item1.setOwner(owner);
+        item1.setAvailable(true);
+        item1.setName("Набор бит");
+        item1.setDescription("Биты для шуруповерта");
+        repository.save(item1);
+
+        List<String> names = repository.findNamesByPrefix("набор", PageRequest.of(0, 10));
+        assertEquals(List.of("Набор бит", "Набор отверток"), names);
+
+        names = repository.findNamesByPrefix("набор", PageRequest.of(0, 1));
+        assertEquals(List.of("Набор бит"), names);
+
+        names = repository.findNamesByPrefix("отв", PageRequest.of(0, 10));
+        assertEquals(0, names.size());
+    }
+
     @Test
     void findByRequestId() {
         //Empty List
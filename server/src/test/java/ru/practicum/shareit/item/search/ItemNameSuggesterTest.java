@@ -0,0 +1,114 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemNameSuggesterTest {
+    private final SpelAwareProxyProjectionFactory factory = new SpelAwareProxyProjectionFactory();
+
+    @Mock
+    ItemRepository repository;
+
+    private ItemNameSuggester suggester;
+
+    @BeforeEach
+    void setup() {
+        suggester = new ItemNameSuggester(repository, SearchMode.INDEX);
+    }
+
+    @Test
+    void suggestBeforeRebuild() {
+        when(repository.findNamesByPrefix("дре", PageRequest.of(0, 10))).thenReturn(List.of("Дрель"));
+        assertEquals(List.of("Дрель"), suggester.suggest("Дре", 10));
+    }
+
+    @Test
+    void rebuild() {
+        when(repository.findSearchViewsAfter(anyLong(), any())).thenAnswer(invocation -> {
+            suggester.onItemChanged(new ItemChangedEvent(3L, 1L, "Дрель-миксер", "Миксер", true, false));
+            return List.of(view(1L, "Дрель"), view(2L, "дрель"), view(4L, "Пила"));
+        });
+        suggester.rebuild();
+
+        assertEquals(List.of("Дрель", "Дрель-миксер"), suggester.suggest("ДР", 10));
+        assertEquals(List.of("Дрель"), suggester.suggest("др", 1));
+        assertEquals(List.of("Пила"), suggester.suggest("п", 10));
+        assertEquals(Collections.emptyList(), suggester.suggest("я", 10));
+    }
+
+    @Test
+    void databaseMode() {
+        ItemNameSuggester database = new ItemNameSuggester(repository, SearchMode.DATABASE);
+        database.rebuild();
+        database.onItemChanged(new ItemChangedEvent(1L, 1L, "Долото", "Долото", true, false));
+        database.onUserDeleted(new UserDeletedEvent(1L));
+
+        when(repository.findNamesByPrefix("д", PageRequest.of(0, 10))).thenReturn(List.of("Дрель"));
+        assertEquals(List.of("Дрель"), database.suggest("Д", 10));
+        verify(repository, never()).findSearchViewsAfter(anyLong(), any());
+    }
+
+    @Test
+    void rebuildFailed() {
+        when(repository.findSearchViewsAfter(anyLong(), any())).thenThrow(new IllegalStateException("db is down"));
+        suggester.rebuild();
+
+        when(repository.findNamesByPrefix("дре", PageRequest.of(0, 10))).thenReturn(List.of("Дрель"));
+        assertEquals(List.of("Дрель"), suggester.suggest("дре", 10));
+    }
+
+    @Test
+    void onItemChanged() {
+        when(repository.findSearchViewsAfter(anyLong(), any())).thenReturn(new ArrayList<>());
+        suggester.rebuild();
+        suggester.onItemChanged(new ItemChangedEvent(1L, 1L, "Дрель", "Дрель", true, false));
+        suggester.onItemChanged(new ItemChangedEvent(2L, 1L, "Дрель", "Дрель", true, false));
+        assertEquals(List.of("Дрель"), suggester.suggest("д", 10));
+
+        //Patch
+        suggester.onItemChanged(new ItemChangedEvent(1L, 1L, "Долото", "Долото", true, false));
+        assertEquals(List.of("Долото", "Дрель"), suggester.suggest("д", 10));
+
+        //Unavailable and Delete
+        suggester.onItemChanged(new ItemChangedEvent(1L, 1L, "Долото", "Долото", false, false));
+        suggester.onItemChanged(new ItemChangedEvent(2L, 1L, "Дрель", "Дрель", true, true));
+        assertEquals(Collections.emptyList(), suggester.suggest("д", 10));
+    }
+
+    @Test
+    void onUserDeleted() {
+        when(repository.findSearchViewsAfter(anyLong(), any())).thenReturn(new ArrayList<>());
+        suggester.rebuild();
+        suggester.onItemChanged(new ItemChangedEvent(1L, 1L, "Дрель", "Дрель", true, false));
+        suggester.onItemChanged(new ItemChangedEvent(2L, 2L, "Долото", "Долото", true, false));
+        suggester.onUserDeleted(new UserDeletedEvent(1L));
+
+        assertEquals(List.of("Долото"), suggester.suggest("д", 10));
+    }
+
+    private ItemSearchView view(long id, String name) {
+        return factory.createProjection(ItemSearchView.class,
+                Map.of("id", id, "ownerId", 1L, "name", name, "description", name));
+    }
+}
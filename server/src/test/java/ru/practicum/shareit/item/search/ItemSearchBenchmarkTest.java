@@ -0,0 +1,102 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Сравнение like-запроса и индекса в памяти. Запуск: mvn test -Dbenchmark=true [-Dbenchmark.items=1000000]
+ */
+@SpringBootTest(properties = "shareit.search.mode=index")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ItemSearchBenchmarkTest {
+    private static final String[] WORDS = {"дрель", "пила", "молоток", "отвертка", "лестница", "палатка", "велосипед",
+            "самокат", "проектор", "колонка", "шуруповерт", "перфоратор", "рюкзак", "спальник", "гитара", "камера",
+            "штатив", "лодка", "мангал", "коньки", "лыжи", "сноуборд", "ноутбук", "принтер", "пылесос", "стремянка"};
+    private static final int ITERATIONS = 10;
+    private static final int SIZE = 10;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ItemRepository repository;
+    private final ItemSearchIndex index;
+
+    private long ownerId;
+
+    @BeforeAll
+    void fill() {
+        int count = Integer.getInteger("benchmark.items", 1_000_000);
+        jdbcTemplate.update("insert into users (name, email) values ('benchmark', 'benchmark@mail.ru')");
+        ownerId = jdbcTemplate.queryForObject("select id from users where email = 'benchmark@mail.ru'", Long.class);
+        Random random = new Random(42);
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            String description = name + " модель " + random.nextInt(count) + " в отличном состоянии";
+            batch.add(new Object[]{name, description, ownerId, random.nextInt(10) != 0});
+            if (batch.size() == 10_000) {
+                insert(batch);
+            }
+        }
+        insert(batch);
+        long start = System.nanoTime();
+        index.rebuild();
+        System.out.printf("Index of %d items built in %d ms%n", count, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @AfterAll
+    void clean() {
+        jdbcTemplate.update("delete from users where id = ?", ownerId);
+        index.rebuild();
+    }
+
+    @Test
+    void compare() {
+        for (String text : List.of("дрель", "модель 4242", "ель 12345", "фыва")) {
+            for (int from : List.of(0, 1000)) {
+                PageRequest page = PageRequest.of(from / SIZE, SIZE);
+                List<Long> fromDb = measure("like  ", text, from, () -> repository.searchWithPaging(text, page)
+                        .map(item -> item.getId()).getContent());
+                List<Long> fromIndex = measure("index ", text, from, () -> {
+                    List<Long> ids = index.search(text, page.getOffset(), SIZE);
+                    repository.findAllById(ids);
+                    return ids;
+                });
+                assertEquals(fromDb.size(), fromIndex.size());
+            }
+        }
+    }
+
+    private List<Long> measure(String name, String text, int from, Supplier<List<Long>> search) {
+        List<Long> result = search.get();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            search.get();
+        }
+        long avg = (System.nanoTime() - start) / ITERATIONS / 1000;
+        System.out.printf("%s text='%s' from=%d: %d us/op, %d results%n", name, text, from, avg, result.size());
+        return result;
+    }
+
+    private void insert(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("insert into items (name, description, owner_id, available) values (?, ?, ?, ?)",
+                batch);
+        batch.clear();
+    }
+}
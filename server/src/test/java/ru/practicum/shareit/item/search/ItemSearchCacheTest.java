@@ -0,0 +1,149 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.datasource.PrimaryReads;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ItemSearchCacheTest {
+    private final ItemDto drill = ItemDto.builder().id(1L).name("Дрель").description("Дрель ударная")
+            .available(true).build();
+
+    private MeterRegistry registry;
+    private ItemSearchCache cache;
+    private AtomicInteger loads;
+    private final AtomicLong now = new AtomicLong();
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        cache = new ItemSearchCache(new PrimaryReads(), registry, SearchMode.INDEX, 2, Duration.ofSeconds(60),
+                now::get);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void get() {
+        assertEquals(List.of(drill), load("дрель", 0));
+        assertEquals(List.of(drill), load("дрель", 0));
+        assertEquals(1, loads.get());
+
+        load("дрель", 10);
+        assertEquals(2, loads.get());
+        assertEquals(1.0, registry.get("cache.gets").tag("result", "hit").counter().count());
+        assertEquals(2.0, registry.get("cache.gets").tag("result", "miss").counter().count());
+        assertEquals(2.0, registry.get("cache.size").gauge().value());
+    }
+
+    @Test
+    void evictLeastRecentlyUsed() {
+        load("дрель", 0);
+        load("пила", 0);
+        load("дрель", 0);
+        load("молоток", 0);
+        assertEquals(3, loads.get());
+
+        load("дрель", 0);
+        assertEquals(3, loads.get());
+        load("пила", 0);
+        assertEquals(4, loads.get());
+        assertEquals(2.0, registry.get("cache.evictions").counter().count());
+    }
+
+    @Test
+    void invalidateOnlyAffectedQueries() {
+        load("дрель", 0);
+        load("пила", 0);
+
+        //New item matches the query
+        cache.onItemChanged(new ItemChangedEvent(2L, 1L, "Дрель-миксер", "Миксер", true, false));
+        load("дрель", 0);
+        load("пила", 0);
+        assertEquals(3, loads.get());
+
+        //Unavailable item does not affect
+        cache.onItemChanged(new ItemChangedEvent(3L, 1L, "Пила", "Пила", false, false));
+        load("пила", 0);
+        assertEquals(3, loads.get());
+
+        //Item no longer matches the query
+        cache.onItemChanged(new ItemChangedEvent(1L, 1L, "Перфоратор", "Перфоратор", true, false,
+                "Дрель", "Дрель ударная", true));
+        load("дрель", 0);
+        load("пила", 0);
+        assertEquals(4, loads.get());
+
+        //Deleted item
+        cache.onItemChanged(new ItemChangedEvent(4L, 1L, "Ножовка", "Пила по дереву", true, true));
+        load("дрель", 0);
+        load("пила", 0);
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void invalidateWildcardQueries() {
+        load("д_ель", 0);
+        cache.onItemChanged(new ItemChangedEvent(2L, 1L, "Пила", "Пила", true, false));
+        load("д_ель", 0);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void clearInFullTextMode() {
+        cache = new ItemSearchCache(new PrimaryReads(), registry, SearchMode.FULL_TEXT, 2, Duration.ofSeconds(60),
+                now::get);
+        load("дрель", 0);
+        cache.onItemChanged(new ItemChangedEvent(2L, 1L, "Пила", "Пила", true, false));
+        load("дрель", 0);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void onUserDeleted() {
+        load("дрель", 0);
+        cache.onUserDeleted(new UserDeletedEvent(1L));
+        assertEquals(0, cache.pageCount());
+    }
+
+    @Test
+    void skipPutWhenChangedDuringLoading() {
+        cache.get("дрель", 0, 10, () -> {
+            cache.onItemChanged(new ItemChangedEvent(2L, 1L, "Пила", "Пила", true, false));
+            return List.of(drill);
+        });
+        assertEquals(0, cache.pageCount());
+    }
+
+    @Test
+    void expireAfterTtl() {
+        load("дрель", 0);
+        now.addAndGet(Duration.ofSeconds(59).toNanos());
+        load("дрель", 0);
+        assertEquals(1, loads.get());
+
+        //Changed On Another Server
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        load("дрель", 0);
+        assertEquals(2, loads.get());
+        load("дрель", 0);
+        assertEquals(2, loads.get());
+    }
+
+    private List<ItemDto> load(String text, int from) {
+        return cache.get(text, from, 10, () -> {
+            loads.incrementAndGet();
+            return List.of(drill);
+        });
+    }
+}
@@ -0,0 +1,214 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearchIndexTest {
+    private final SpelAwareProxyProjectionFactory factory = new SpelAwareProxyProjectionFactory();
+
+    @Mock
+    ItemRepository repository;
+
+    private ItemSearchIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new ItemSearchIndex(repository, SearchMode.INDEX);
+    }
+
+    @Test
+    void rebuild() {
+        assertFalse(index.isReady());
+        when(repository.findSearchViewsAfter(anyLong(), any())).thenReturn(List.of(
+                view(1L, 1L, "Дрель", "Дрель ударная"),
+                view(2L, 1L, "Набор отверток", "Большой набор отверток")));
+        index.rebuild();
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(2L), index.search("отв", 0, 10));
+        assertEquals(List.of(1L), index.search("ударная", 0, 10));
+        assertEquals(List.of(1L, 2L), index.search("р", 0, 10));
+        assertEquals(Collections.emptyList(), index.search("фыва", 0, 10));
+    }
+
+    @Test
+    void rebuildWithChangesDuringLoading() {
+        when(repository.findSearchViewsAfter(anyLong(), any())).thenAnswer(invocation -> {
+            index.onItemChanged(new ItemChangedEvent(2L, 1L, "Пила", "Ножовка", true, false));
+            index.onItemChanged(new ItemChangedEvent(1L, 1L, "Дрель", "Дрель ударная", true, true));
+            return List.of(view(1L, 1L, "Дрель", "Дрель ударная"));
+        });
+        index.rebuild();
+
+        assertEquals(Collections.emptyList(), index.search("дрель", 0, 10));
+        assertEquals(List.of(2L), index.search("пила", 0, 10));
+    }
+
+    @Test
+    void rebuildFailed() {
+        when(repository.findSearchViewsAfter(anyLong(), any())).thenThrow(new IllegalStateException("db is down"));
+        index.rebuild();
+        assertFalse(index.isReady());
+    }
+
+    @Test
+    void disabled() {
+        index = new ItemSearchIndex(repository, SearchMode.DATABASE);
+        index.rebuild();
+        index.onItemChanged(new ItemChangedEvent(1L, 1L, "Дрель", "Дрель ударная", true, false));
+        index.onUserDeleted(new UserDeletedEvent(1L));
+
+        assertFalse(index.isReady());
+        verify(repository, never()).findSearchViewsAfter(anyLong(), any());
+    }
+
+    @Test
+    void searchWithoutFalsePositives() {
+        rebuildEmpty();
+        index.onItemChanged(new ItemChangedEvent(1L, 1L, "abcxbcd", "description", true, false));
+
+        assertEquals(Collections.emptyList(), index.search("abcd", 0, 10));
+        assertEquals(List.of(1L), index.search("xbcd", 0, 10));
+    }
+
+    @Test
+    void searchWithPaging() {
+        rebuildEmpty();
+        index.onItemChanged(new ItemChangedEvent(3L, 1L, "Дрель 3", "Дрель", true, false));
+        index.onItemChanged(new ItemChangedEvent(1L, 1L, "Дрель 1", "Дрель", true, false));
+        index.onItemChanged(new ItemChangedEvent(2L, 1L, "Дрель 2", "Дрель", true, false));
+
+        assertEquals(List.of(1L, 2L), index.search("дрель", 0, 2));
+        assertEquals(List.of(3L), index.search("дрель", 2, 2));
+        assertEquals(Collections.emptyList(), index.search("дрель", 4, 2));
+    }
+
+    @Test
+    void searchAfter() {
+        rebuildEmpty();
+        index.onItemChanged(new ItemChangedEvent(3L, 1L, "Дрель 3", "Дрель", true, false));
+        index.onItemChanged(new ItemChangedEvent(1L, 1L, "Дрель 1", "Дрель", true, false));
+        index.onItemChanged(new ItemChangedEvent(5L, 1L, "Дрель 5", "Дрель", true, false));
+
+        assertEquals(List.of(1L, 3L), index.searchAfter("дрель", 0, 2));
+        assertEquals(List.of(5L), index.searchAfter("дрель", 3, 2));
+        assertEquals(List.of(5L), index.searchAfter("дрель", 4, 2));
+        assertEquals(Collections.emptyList(), index.searchAfter("дрель", 5, 2));
+    }
+
+    @Test
+    void searchRanked() {
+        rebuildEmpty();
+        index.onItemChanged(new ItemChangedEvent(1L, 1L, "Набор инструментов", "Дрель, отвертка, молоток", true, false));
+        index.onItemChanged(new ItemChangedEvent(2L, 1L, "Дрель", "Ударная, с набором сверл", true, false));
+        index.onItemChanged(new ItemChangedEvent(3L, 1L, "Перфоратор", "Мощный", true, false));
+        index.onItemChanged(new ItemChangedEvent(4L, 1L, "Дрель аккумуляторная", "Дрель с двумя аккумуляторами",
+                true, false));
+
+        Map<Long, Double> ranked = index.searchRanked("дрель", 0, 10);
+        assertEquals(List.of(2L, 4L, 1L), new ArrayList<>(ranked.keySet()));
+        assertTrue(ranked.get(4L) > ranked.get(1L));
+
+        //Any word
+        ranked = index.searchRanked("дрель мощный", 0, 10);
+        assertEquals(4, ranked.size());
+        assertTrue(ranked.containsKey(3L));
+
+        //Top k with offset
+        ranked = index.searchRanked("дрель", 1, 1);
+        assertEquals(List.of(4L), new ArrayList<>(ranked.keySet()));
+        assertEquals(0, index.searchRanked("дрель", 3, 10).size());
+        assertEquals(0, index.searchRanked(" , ", 0, 10).size());
+        assertEquals(0, index.searchRanked("фыва", 0, 10).size());
+    }
+
+    @Test
+    void onItemChanged() {
+        rebuildEmpty();
+        index.onItemChanged(new ItemChangedEvent(1L, 1L, "Дрель", "Дрель ударная", true, false));
+        assertEquals(List.of(1L), index.search("дрель", 0, 10));
+
+        //Patch
+        index.onItemChanged(new ItemChangedEvent(1L, 1L, "Перфоратор", "Перфоратор ударный", true, false));
+        assertEquals(Collections.emptyList(), index.search("дрель", 0, 10));
+        assertEquals(List.of(1L), index.search("перф", 0, 10));
+
+        //Unavailable
+        index.onItemChanged(new ItemChangedEvent(1L, 1L, "Перфоратор", "Перфоратор ударный", false, false));
+        assertEquals(Collections.emptyList(), index.search("перф", 0, 10));
+
+        //Delete
+        index.onItemChanged(new ItemChangedEvent(1L, 1L, "Перфоратор", "Перфоратор ударный", true, false));
+        index.onItemChanged(new ItemChangedEvent(1L, 1L, "Перфоратор", "Перфоратор ударный", true, true));
+        assertEquals(Collections.emptyList(), index.search("перф", 0, 10));
+    }
+
+    @Test
+    void onUserDeleted() {
+        rebuildEmpty();
+        index.onItemChanged(new ItemChangedEvent(1L, 1L, "Дрель", "Дрель ударная", true, false));
+        index.onItemChanged(new ItemChangedEvent(2L, 2L, "Дрель", "Дрель аккумуляторная", true, false));
+        index.onUserDeleted(new UserDeletedEvent(1L));
+
+        assertEquals(List.of(2L), index.search("дрель", 0, 10));
+    }
+
+    @Test
+    void compact() {
+        rebuildEmpty();
+        int count = 25_000;
+        for (long id = 1; id <= count; id++) {
+            index.onItemChanged(new ItemChangedEvent(id, 1L, "Дрель " + id, "Дрель", true, false));
+        }
+        for (long id = 1; id < count; id++) {
+            index.onItemChanged(new ItemChangedEvent(id, 1L, "Дрель " + id, "Дрель", true, true));
+        }
+
+        assertEquals(List.of((long) count), index.search("дрель", 0, 10));
+        assertEquals(List.of((long) count), index.search(String.valueOf(count), 0, 10));
+    }
+
+    @Test
+    void onUserDeletedWithCompaction() {
+        rebuildEmpty();
+        List<Long> kept = new ArrayList<>();
+        for (long id = 1; id <= 5_000; id++) {
+            index.onItemChanged(new ItemChangedEvent(id, 2L, "Дрель", "Дрель", true, false));
+            kept.add(id);
+        }
+        for (long id = 5_001; id <= 30_000; id++) {
+            index.onItemChanged(new ItemChangedEvent(id, 1L, "Дрель", "Дрель", true, false));
+        }
+        index.onUserDeleted(new UserDeletedEvent(1L));
+
+        assertEquals(kept, index.search("дрель", 0, 100_000));
+    }
+
+    private void rebuildEmpty() {
+        when(repository.findSearchViewsAfter(anyLong(), any())).thenReturn(new ArrayList<>());
+        index.rebuild();
+    }
+
+    private ItemSearchView view(long id, long ownerId, String name, String description) {
+        return factory.createProjection(ItemSearchView.class,
+                Map.of("id", id, "ownerId", ownerId, "name", name, "description", description));
+    }
+}
@@ -0,0 +1,147 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import ru.practicum.shareit.error.exception.ValidationException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearcherTest {
+    private static final PageRequest PAGE = PageRequest.of(0, 10);
+
+    private final SpelAwareProxyProjectionFactory factory = new SpelAwareProxyProjectionFactory();
+
+    @Mock
+    ItemRepository repository;
+
+    @Mock
+    ItemSearchIndex index;
+
+    private Item item;
+    private Item item1;
+
+    @BeforeEach
+    void setup() {
+        item = new Item();
+        item.setId(1L);
+        item.setName("Дрель");
+        item1 = new Item();
+        item1.setId(2L);
+        item1.setName("Дрель ударная");
+    }
+
+    @Test
+    void searchInDatabase() {
+        ItemSearcher searcher = new ItemSearcher(repository, index, SearchMode.DATABASE);
+        when(repository.searchWithPaging("дрель", PAGE)).thenReturn(new SliceImpl<>(List.of(item)));
+
+        assertEquals(List.of(item), searcher.search("дрель", PAGE));
+        verify(repository, never()).searchFullTextWithPaging(any(), any());
+    }
+
+    @Test
+    void searchFullText() {
+        ItemSearcher searcher = new ItemSearcher(repository, index, SearchMode.FULL_TEXT);
+        when(repository.searchFullTextWithPaging("дрель", PAGE)).thenReturn(new SliceImpl<>(List.of(item)));
+
+        assertEquals(List.of(item), searcher.search("дрель", PAGE));
+        verify(repository, never()).searchWithPaging(any(), any());
+    }
+
+    @Test
+    void searchInIndex() {
+        ItemSearcher searcher = new ItemSearcher(repository, index, SearchMode.INDEX);
+        when(index.isReady()).thenReturn(true);
+        when(index.search("дрель", 0, 10)).thenReturn(List.of(2L, 1L));
+        when(repository.findAllById(List.of(2L, 1L))).thenReturn(List.of(item, item1));
+
+        assertEquals(List.of(item1, item), searcher.search("дрель", PAGE));
+
+        //Empty List
+        when(index.search("фыва", 0, 10)).thenReturn(Collections.emptyList());
+        assertEquals(Collections.emptyList(), searcher.search("фыва", PAGE));
+        verify(repository, never()).searchWithPaging(any(), any());
+    }
+
+    @Test
+    void searchRanked() {
+        ItemSearcher searcher = new ItemSearcher(repository, index, SearchMode.INDEX);
+        when(index.isReady()).thenReturn(true);
+        LinkedHashMap<Long, Double> scores = new LinkedHashMap<>();
+        scores.put(2L, 2.5);
+        scores.put(1L, 0.5);
+        when(index.searchRanked("дрель", 0, 10)).thenReturn(scores);
+        when(repository.findAllById(List.of(2L, 1L))).thenReturn(List.of(item, item1));
+
+        Map<Item, Double> ranked = searcher.searchRanked("дрель", PAGE);
+        assertEquals(List.of(item1, item), List.copyOf(ranked.keySet()));
+        assertEquals(2.5, ranked.get(item1));
+
+        //Without Index
+        when(index.isReady()).thenReturn(false);
+        when(repository.searchWithPaging("дрель", PAGE)).thenReturn(new SliceImpl<>(List.of(item)));
+        ranked = searcher.searchRanked("дрель", PAGE);
+        assertEquals(List.of(item), List.copyOf(ranked.keySet()));
+        assertNull(ranked.get(item));
+    }
+
+    @Test
+    void searchRankedFullText() {
+        ItemSearcher searcher = new ItemSearcher(repository, index, SearchMode.FULL_TEXT);
+        when(repository.searchFullTextRanked("дрель", PAGE)).thenReturn(List.of(rank(2L, 0.6), rank(1L, 0.1)));
+        when(repository.findAllById(List.of(2L, 1L))).thenReturn(List.of(item, item1));
+
+        Map<Item, Double> ranked = searcher.searchRanked("дрель", PAGE);
+        assertEquals(List.of(item1, item), List.copyOf(ranked.keySet()));
+        assertEquals(0.6, ranked.get(item1));
+        assertEquals(0.1, ranked.get(item));
+        verify(index, never()).searchRanked(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void searchRankedInDatabase() {
+        ItemSearcher searcher = new ItemSearcher(repository, index, SearchMode.DATABASE);
+
+        assertThrows(ValidationException.class, () -> searcher.searchRanked("дрель", PAGE));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void searchAfter() {
+        ItemSearcher searcher = new ItemSearcher(repository, index, SearchMode.INDEX);
+        when(index.isReady()).thenReturn(true);
+        when(index.searchAfter("дрель", 1L, 10)).thenReturn(List.of(2L));
+        when(repository.findAllById(List.of(2L))).thenReturn(List.of(item1));
+        assertEquals(List.of(item1), searcher.searchAfter("дрель", 1L, 10));
+
+        //Without Index
+        when(index.isReady()).thenReturn(false);
+        when(repository.searchAfter("дрель", 1L, PAGE)).thenReturn(List.of(item1));
+        assertEquals(List.of(item1), searcher.searchAfter("дрель", 1L, 10));
+
+        searcher = new ItemSearcher(repository, index, SearchMode.FULL_TEXT);
+        when(repository.searchFullTextAfter("дрель", 1L, PAGE)).thenReturn(List.of(item1));
+        assertEquals(List.of(item1), searcher.searchAfter("дрель", 1L, 10));
+    }
+
+    private ItemRankView rank(long id, double score) {
+        return factory.createProjection(ItemRankView.class, Map.of("id", id, "score", score));
+    }
+}
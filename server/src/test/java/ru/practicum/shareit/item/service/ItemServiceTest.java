@@ -6,29 +6,52 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.archive.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.availability.BookingAvailability;
+import ru.practicum.shareit.booking.dates.ItemBookingDates;
+import ru.practicum.shareit.booking.dates.ItemBookingDatesRepository;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.error.exception.NotFoundException;
 import ru.practicum.shareit.error.exception.ValidationException;
+import ru.practicum.shareit.item.detail.ItemDetail;
+import ru.practicum.shareit.item.detail.ItemDetailCache;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemBookingCommentsDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.event.CommentAddedEvent;
+import ru.practicum.shareit.item.event.ItemChangedEvent;
+import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.ItemSearcher;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserValidator;
 
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -41,14 +64,38 @@ class ItemServiceTest {
     ItemRepository repository;
 
     @Mock
-    UserRepository userRepo;
+    UserValidator users;
 
     @Mock
     BookingRepository bookingRepo;
 
+    @Mock
+    ArchivedBookingRepository archiveRepo;
+
+    @Mock
+    ItemBookingDatesRepository bookingDatesRepo;
+
     @Mock
     CommentRepository commentRepo;
 
+    @Mock
+    ItemSearcher searcher;
+
+    @Mock
+    ItemNameSuggester suggester;
+
+    @Mock
+    ItemSearchCache cache;
+
+    @Mock
+    ItemDetailCache detailCache;
+
+    @Mock
+    BookingAvailability availability;
+
+    @Mock
+    ApplicationEventPublisher publisher;
+
     @InjectMocks
     ItemServiceImpl service;
 
@@ -102,43 +149,149 @@ class ItemServiceTest {
         long userId = booker.getId();
         int from = 0;
         int size = 1;
-        PageRequest page = PageRequest.of(from / size, size);
-        when(userRepo.findById(userId)).thenReturn(Optional.of(booker));
-        when(repository.findByOwnerId(userId, page)).thenReturn(Page.empty());
+        PageRequest page = PageRequest.of(from / size, size, Sort.by("id"));
+        when(repository.findByOwnerId(userId, page)).thenReturn(new SliceImpl<>(Collections.emptyList()));
         List<ItemBookingCommentsDto> itemDtos = service.findAllByUserId(userId, from, size);
         assertNotNull(itemDtos);
         assertEquals(0, itemDtos.size());
 
         //Single List
         userId = owner.getId();
-        when(userRepo.findById(userId)).thenReturn(Optional.of(owner));
         when(commentRepo.findAllByItemIdIn(List.of(item.getId()), SORT))
                 .thenReturn(List.of(comment));
-        when(bookingRepo.findByItemIdInAndStatusOrStatusOrderByStartAsc(List.of(item.getId()),
-                Status.APPROVED, Status.WAITING)).thenReturn(List.of(booking));
-        when(repository.findByOwnerId(userId, page)).thenReturn(new PageImpl<>(List.of(item)));
+        when(bookingRepo.findLastAndNextByItemIdIn(eq(Set.of(item.getId())), any())).thenReturn(List.of(booking));
+        when(repository.findByOwnerId(userId, page)).thenReturn(new SliceImpl<>(List.of(item)));
         itemDtos = service.findAllByUserId(userId, from, size);
         assertNotNull(itemDtos);
         assertEquals(1, itemDtos.size());
         assertEquals(booking.getId(), itemDtos.get(0).getLastBooking().getId());
     }
 
+    @Test
+    void findAllByUserIdAfter() {
+        long userId = owner.getId();
+        int size = 1;
+        Item second = new Item();
+        second.setId(2L);
+        when(repository.findByOwnerIdAndIdGreaterThanOrderById(userId, 0, PageRequest.of(0, size + 1)))
+                .thenReturn(List.of(item, second));
+        CursorPage<ItemBookingCommentsDto> page = service.findAllByUserIdAfter(userId, "", size);
+        assertEquals(1, page.getContent().size());
+        assertEquals(Cursor.of(item.getId()).encode(), page.getNextCursor());
+
+        when(repository.findByOwnerIdAndIdGreaterThanOrderById(userId, item.getId(), PageRequest.of(0, size + 1)))
+                .thenReturn(Collections.emptyList());
+        page = service.findAllByUserIdAfter(userId, page.getNextCursor(), size);
+        assertEquals(0, page.getContent().size());
+        assertNull(page.getNextCursor());
+    }
+
     @Test
     void findById() {
         long ownerId = owner.getId();
         long itemId = item.getId();
-        when(userRepo.findById(ownerId)).thenReturn(Optional.of(owner));
+        loadDetailsThroughCache();
         when(repository.findById(itemId)).thenReturn(Optional.of(item));
-        when(bookingRepo.findByItemIdAndStatusOrStatusOrderByStartAsc(itemId,
-                Status.APPROVED, Status.WAITING)).thenReturn(List.of(booking));
+        Booking nextBooking = new Booking();
+        nextBooking.setId(2L);
+        nextBooking.setStart(NOW.plusSeconds(3600));
+        nextBooking.setEnd(NOW.plusSeconds(7200));
+        nextBooking.setItem(item);
+        nextBooking.setBooker(booker);
+        nextBooking.setStatus(Status.WAITING);
+        when(bookingRepo.findLastAndNextByItemIdIn(eq(Set.of(itemId)), any()))
+                .thenReturn(List.of(booking, nextBooking));
         when(commentRepo.findAllByItemId(itemId, SORT))
                 .thenReturn(List.of(comment));
         ItemBookingCommentsDto itemDto = service.findById(ownerId, itemId);
         assertNotNull(itemDto);
         assertEquals(itemId, itemDto.getId());
+        assertEquals(booking.getId(), itemDto.getLastBooking().getId());
+        assertEquals(nextBooking.getId(), itemDto.getNextBooking().getId());
         assertEquals(comment.getId(), itemDto.getComments().get(0).getId());
     }
 
+    @Test
+    void findByIdFromCache() {
+        long itemId = item.getId();
+        ItemBookingCommentsDto cached = ItemMapper.toItemBookingCommentsDto(item);
+        when(detailCache.get(eq(itemId), any())).thenReturn(new ItemDetail(owner.getId(), cached));
+
+        //Not Owner
+        ItemBookingCommentsDto itemDto = service.findById(booker.getId(), itemId);
+        assertSame(cached, itemDto);
+        assertNull(itemDto.getLastBooking());
+        verify(bookingDatesRepo, never()).findByItemIdIn(any());
+
+        //Owner
+        when(bookingRepo.findLastAndNextByItemIdIn(eq(Set.of(itemId)), any())).thenReturn(List.of(booking));
+        itemDto = service.findById(owner.getId(), itemId);
+        assertEquals(booking.getId(), itemDto.getLastBooking().getId());
+        verify(repository, never()).findById(anyLong());
+        verify(commentRepo, never()).findAllByItemId(anyLong(), any());
+    }
+
+    @Test
+    void findByIdFailByItemNotFound() {
+        loadDetailsThroughCache();
+        when(repository.findById(0L)).thenReturn(Optional.empty());
+        NotFoundException exception = assertThrows(NotFoundException.class, () -> service.findById(1L, 0L));
+        assertEquals("Вещь с id 0 не найдена", exception.getMessage());
+    }
+
+    @Test
+    void findAvailability() {
+        long ownerId = owner.getId();
+        long itemId = item.getId();
+        LocalDate from = LocalDate.of(2023, 5, 1);
+        LocalDate to = LocalDate.of(2023, 5, 7);
+        when(repository.findById(itemId)).thenReturn(Optional.of(item));
+        when(availability.bookedDays(itemId, from, to, ZoneId.systemDefault()))
+                .thenReturn(BitSet.valueOf(new long[]{0b10010}));
+
+        ItemAvailabilityDto availabilityDto = service.findAvailability(ownerId, itemId, from, to);
+        assertEquals(itemId, availabilityDto.getItemId());
+        assertEquals(from, availabilityDto.getFrom());
+        assertEquals(to, availabilityDto.getTo());
+        assertEquals(List.of(LocalDate.of(2023, 5, 2), LocalDate.of(2023, 5, 5)), availabilityDto.getBookedDays());
+
+        //Item Not Found
+        when(repository.findById(0L)).thenReturn(Optional.empty());
+        assertThrows(NotFoundException.class, () -> service.findAvailability(ownerId, 0L, from, to));
+    }
+
+    @Test
+    void findByIdWithCalculatedBookingDates() {
+        long ownerId = owner.getId();
+        long itemId = item.getId();
+        loadDetailsThroughCache();
+        when(repository.findById(itemId)).thenReturn(Optional.of(item));
+        ItemBookingDates dates = new ItemBookingDates();
+        dates.setItemId(itemId);
+        dates.setLastBooking(booking);
+        when(bookingDatesRepo.findByItemIdIn(Set.of(itemId))).thenReturn(List.of(dates));
+
+        ItemBookingCommentsDto itemDto = service.findById(ownerId, itemId);
+        assertEquals(booking.getId(), itemDto.getLastBooking().getId());
+        assertNull(itemDto.getNextBooking());
+        verify(bookingRepo, never()).findLastAndNextByItemIdIn(any(), any());
+
+        //Next Booking Has Started
+        Booking startedBooking = new Booking();
+        startedBooking.setId(2L);
+        startedBooking.setStart(NOW.minusSeconds(10));
+        startedBooking.setEnd(NOW.plusSeconds(60));
+        startedBooking.setItem(item);
+        startedBooking.setBooker(booker);
+        startedBooking.setStatus(Status.APPROVED);
+        dates.setNextBooking(startedBooking);
+        when(bookingRepo.findLastAndNextByItemIdIn(eq(Set.of(itemId)), any())).thenReturn(List.of(startedBooking));
+
+        itemDto = service.findById(ownerId, itemId);
+        assertEquals(startedBooking.getId(), itemDto.getLastBooking().getId());
+        assertNull(itemDto.getNextBooking());
+    }
+
     @Test
     void findByText() {
         int from = 0;
@@ -152,18 +305,71 @@ class ItemServiceTest {
 
         //Regular Case
         text = "дРелЬ";
-        when(repository.searchWithPaging(any(), any())).thenReturn(new PageImpl<>(List.of(item)));
+        when(cache.get(eq("дрель"), eq(from), eq(size), any())).thenAnswer(invocation ->
+                invocation.<Supplier<List<ItemDto>>>getArgument(3).get());
+        when(searcher.search("дрель", PageRequest.of(from / size, size))).thenReturn(List.of(item));
         itemDtos = service.findByText(text, from, size);
         assertNotNull(itemDtos);
         assertEquals(1, itemDtos.size());
         assertEquals(item.getId(), itemDtos.get(0).getId());
     }
 
+    @Test
+    void findByTextAfter() {
+        int size = 1;
+        CursorPage<ItemDto> page = service.findByTextAfter(" ", "", size);
+        assertEquals(0, page.getContent().size());
+
+        Item second = new Item();
+        second.setId(2L);
+        second.setName("Дрель");
+        second.setDescription("Дрель аккумуляторная");
+        second.setAvailable(true);
+        when(searcher.searchAfter("дрель", 0, size + 1)).thenReturn(List.of(item, second));
+        page = service.findByTextAfter("Дрель", "", size);
+        assertEquals(List.of(item.getId()), page.getContent().stream().map(ItemDto::getId)
+                .collect(Collectors.toList()));
+        assertEquals(Cursor.of(item.getId()).encode(), page.getNextCursor());
+
+        //Last Page Exactly Full
+        when(searcher.searchAfter("дрель", item.getId(), size + 1)).thenReturn(List.of(second));
+        page = service.findByTextAfter("Дрель", page.getNextCursor(), size);
+        assertEquals(1, page.getContent().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void findByTextRanked() {
+        int from = 0;
+        int size = 1;
+
+        //EmptyList
+        List<ItemDto> itemDtos = service.findByTextRanked(" ", from, size);
+        assertEquals(0, itemDtos.size());
+
+        //Regular Case
+        LinkedHashMap<Item, Double> ranked = new LinkedHashMap<>();
+        ranked.put(item, 1.5);
+        when(searcher.searchRanked("дрель", PageRequest.of(from / size, size))).thenReturn(ranked);
+        itemDtos = service.findByTextRanked("Дрель", from, size);
+        assertEquals(1, itemDtos.size());
+        assertEquals(item.getId(), itemDtos.get(0).getId());
+        assertEquals(1.5, itemDtos.get(0).getScore());
+    }
+
+    @Test
+    void suggestNames() {
+        assertEquals(0, service.suggestNames(" ", 10).size());
+
+        when(suggester.suggest("Дре", 10)).thenReturn(List.of("Дрель"));
+        assertEquals(List.of("Дрель"), service.suggestNames("Дре", 10));
+    }
+
     @Test
     void add() {
         long userId = owner.getId();
         long itemId = item.getId();
-        when(userRepo.findById(userId)).thenReturn(Optional.of(owner));
+        when(users.getReference(userId)).thenReturn(owner);
         when(repository.save(any())).thenReturn(item);
 
         ItemDto itemDtoToSave = ItemDto.builder()
@@ -175,13 +381,13 @@ class ItemServiceTest {
         assertNotNull(itemDto);
         assertEquals(itemId, itemDto.getId());
         verify(repository, times(1)).save(any());
+        verify(publisher, times(1)).publishEvent(ItemChangedEvent.saved(item));
     }
 
     @Test
     void patch() {
         long userId = owner.getId();
         long itemId = item.getId();
-        when(userRepo.findById(userId)).thenReturn(Optional.of(owner));
         when(repository.findById(itemId)).thenReturn(Optional.of(item));
 
         //regular case
@@ -197,24 +403,25 @@ class ItemServiceTest {
         ItemDto itemDto = service.patch(userId, itemId, itemDtoToUpdate);
         assertNotNull(itemDto);
         assertEquals("nameUpdate", itemDto.getName());
+        verify(publisher, times(1))
+                .publishEvent(ItemChangedEvent.updated(item, newName, newDescription, item.isAvailable()));
     }
 
     @Test
     void delete() {
         long userId = owner.getId();
         long itemId = item.getId();
-        when(userRepo.findById(userId)).thenReturn(Optional.of(owner));
         when(repository.findById(itemId)).thenReturn(Optional.of(item));
         doNothing().when(repository).deleteById(itemId);
         service.delete(userId, itemId);
 
-        verify(userRepo, times(1)).findById(any());
+        verify(users, times(1)).checkExists(userId);
         verify(repository, times(1)).deleteById(any());
+        verify(publisher, times(1)).publishEvent(ItemChangedEvent.deleted(item));
 
         //Fail by Not Owner
         long notOwnerId = booker.getId();
         String error = String.format("Пользователь с id %d не владеет вещью с id %d", notOwnerId, itemId);
-        when(userRepo.findById(notOwnerId)).thenReturn(Optional.of(booker));
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
                 () -> service.delete(notOwnerId, itemId));
@@ -225,7 +432,7 @@ class ItemServiceTest {
     void addComment() {
         long userId = booker.getId();
         long itemId = item.getId();
-        when(userRepo.findById(userId)).thenReturn(Optional.of(owner));
+        when(users.getReference(userId)).thenReturn(owner);
         when(repository.findById(itemId)).thenReturn(Optional.of(item));
         when(bookingRepo
                 .findByBookerIdAndItemIdAndStatusAndStartIsBefore(anyLong(), anyLong(), any(), any()))
@@ -236,10 +443,10 @@ class ItemServiceTest {
         assertEquals(comment.getId(), commentDto.getId());
 
         verify(commentRepo, times(1)).save(any());
+        verify(publisher).publishEvent(new CommentAddedEvent(itemId));
 
         //Fail By not Booker
         long ownerId = owner.getId();
-        when(userRepo.findById(ownerId)).thenReturn(Optional.of(owner));
         when(bookingRepo
                 .findByBookerIdAndItemIdAndStatusAndStartIsBefore(anyLong(), anyLong(), any(), any()))
                 .thenReturn(Collections.emptyList());
@@ -249,5 +456,15 @@ class ItemServiceTest {
                 () -> service.addComment(ownerId, itemId, CommentDto.builder().text("text").build())
         );
         assertEquals(error, exception.getMessage());
+
+        //Booking Moved To Archive
+        when(archiveRepo.existsByBookerIdAndItemIdAndStatus(ownerId, itemId, Status.APPROVED)).thenReturn(true);
+        service.addComment(ownerId, itemId, CommentDto.builder().text("text").build());
+        verify(commentRepo, times(2)).save(any());
+    }
+
+    private void loadDetailsThroughCache() {
+        when(detailCache.get(anyLong(), any())).thenAnswer(invocation -> invocation
+                .<LongFunction<ItemDetail>>getArgument(1).apply(invocation.<Long>getArgument(0)));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,66 @@
+package ru.practicum.shareit.pagination;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import ru.practicum.shareit.error.exception.ValidationException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorTest {
+
+    @Test
+    void encodeAndDecode() {
+        Cursor cursor = Cursor.of(Instant.parse("2023-04-01T10:15:30.123456Z"), 42L);
+        assertEquals(cursor, Cursor.decode(cursor.encode()));
+        assertEquals(Cursor.of(7L), Cursor.decode(Cursor.of(7L).encode()));
+        assertNull(Cursor.decode(""));
+    }
+
+    @Test
+    void decodeInvalid() {
+        assertThrows(ValidationException.class, () -> Cursor.decode("!"));
+        assertThrows(ValidationException.class, () -> Cursor.decode("YWJj"));
+    }
+
+    @Test
+    void decodeKeyed() {
+        Cursor cursor = Cursor.of(Instant.parse("2023-04-01T10:15:30Z"), 42L);
+        assertEquals(cursor, Cursor.decodeKeyed(cursor.encode()));
+        assertNull(Cursor.decodeKeyed(""));
+        ValidationException exception = assertThrows(ValidationException.class,
+                () -> Cursor.decodeKeyed(Cursor.of(7L).encode()));
+        assertEquals(String.format("Некорректный курсор %s", Cursor.of(7L).encode()), exception.getMessage());
+    }
+
+    @Test
+    void page() {
+        CursorPage<Long> page = CursorPage.of(List.of(1L, 2L, 3L), 2, Cursor::of, Function.identity());
+        assertEquals(List.of(1L, 2L), page.getContent());
+        assertEquals(Cursor.of(2L).encode(), page.getNextCursor());
+
+        //Last Page Exactly Full
+        page = CursorPage.of(List.of(1L, 2L), 2, Cursor::of, Function.identity());
+        assertEquals(List.of(1L, 2L), page.getContent());
+        assertNull(page.getNextCursor());
+
+        page = CursorPage.of(List.of(1L), 2, Cursor::of, Function.identity());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void pageFromSlice() {
+        CursorPage<Long> page = CursorPage.of(new SliceImpl<>(List.of(1L, 2L), PageRequest.of(0, 2), true),
+                Cursor::of, Function.identity());
+        assertEquals(List.of(1L, 2L), page.getContent());
+        assertEquals(Cursor.of(2L).encode(), page.getNextCursor());
+
+        page = CursorPage.of(new SliceImpl<>(List.of(1L, 2L), PageRequest.of(0, 2), false),
+                Cursor::of, Function.identity());
+        assertNull(page.getNextCursor());
+    }
+}
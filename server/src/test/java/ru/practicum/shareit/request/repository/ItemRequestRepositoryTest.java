@@ -104,4 +104,34 @@ class ItemRequestRepositoryTest {
         assertEquals(1, requests.size());
         assertEquals("description2", requests.get(0).getDescription());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldFindByRequestorIdNotAfter() {
+        PageRequest page = PageRequest.of(0, 1);
+        em.persist(requestor);
+        em.persist(request);
+        ItemRequest request2 = new ItemRequest();
+        request2.setDescription("description2");
+        request2.setRequestor(requestor);
+        em.persist(request2);
+        em.flush();
+        em.clear();
+        long otherUserId = requestor.getId() + 1;
+
+        PageRequest firstPage = PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "created", "id"));
+        List<ItemRequest> requests = repository.findByRequestorIdNot(otherUserId, firstPage).getContent();
+        assertEquals(request2.getId(), requests.get(0).getId());
+
+        ItemRequest last = requests.get(0);
+        requests = repository.findByRequestorIdNotAfter(otherUserId, last.getCreated(), last.getId(), page);
+        assertEquals(request.getId(), requests.get(0).getId());
+
+        last = requests.get(0);
+        requests = repository.findByRequestorIdNotAfter(otherUserId, last.getCreated(), last.getId(), page);
+        assertEquals(0, requests.size());
+
+        requests = repository.findByRequestorIdNotAfter(requestor.getId(), request2.getCreated(),
+                request2.getId(), page);
+        assertEquals(0, requests.size());
+    }
+}
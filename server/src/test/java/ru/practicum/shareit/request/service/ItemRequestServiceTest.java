@@ -7,19 +7,21 @@ import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.error.exception.NotFoundException;
+import ru.practicum.shareit.error.exception.ValidationException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.CursorPage;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestNewDto;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserValidator;
 
 import java.time.Instant;
 import java.util.Collections;
@@ -32,13 +34,13 @@ import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class ItemRequestServiceTest {
-    private static final Sort SORT = Sort.by(Sort.Direction.DESC, "created");
+    private static final Sort SORT = Sort.by(Sort.Direction.DESC, "created", "id");
 
     @Mock
     private ItemRequestRepository repository;
 
     @Mock
-    private UserRepository userRepo;
+    private UserValidator users;
 
     @Mock
     private ItemRepository itemRepo;
@@ -83,7 +85,7 @@ class ItemRequestServiceTest {
     void add() {
         //Regular case
         when(repository.save(any())).thenReturn(request);
-        when(userRepo.findById(requestor.getId())).thenReturn(Optional.of(requestor));
+        when(users.getReference(requestor.getId())).thenReturn(requestor);
         ItemRequestNewDto requestDto = service.add(requestor.getId(),
                 ItemRequestNewDto.builder().description("description").build());
         assertNotNull(requestDto);
@@ -96,7 +98,7 @@ class ItemRequestServiceTest {
         //Fail By User Not Found
         long userNotFoundId = 0L;
         String error = String.format("Пользователь с id %d не найден", userNotFoundId);
-        when(userRepo.findById(userNotFoundId)).thenThrow(new NotFoundException(error));
+        doThrow(new NotFoundException(error)).when(users).getReference(userNotFoundId);
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
                 () -> service.add(userNotFoundId, ItemRequestNewDto.builder().description("description").build())
@@ -108,7 +110,6 @@ class ItemRequestServiceTest {
     @Test
     void findAllByUserId() {
         long userId = requestor.getId();
-        when(userRepo.findById(userId)).thenReturn(Optional.of(requestor));
         when(repository.findByRequestorId(userId)).thenReturn(List.of(request));
         List<ItemRequestDto> requests = service.findAllByUserId(userId);
         assertNotNull(requests);
@@ -123,9 +124,8 @@ class ItemRequestServiceTest {
         int from = 0;
         int size = 1;
         PageRequest page = PageRequest.of(from / size, size, SORT);
-        when(userRepo.findById(userId)).thenReturn(Optional.of(requestor));
         when(itemRepo.findByRequestIdIn(Collections.emptyList())).thenReturn(Collections.emptyList());
-        when(repository.findByRequestorIdNot(userId, page)).thenReturn(Page.empty());
+        when(repository.findByRequestorIdNot(userId, page)).thenReturn(new SliceImpl<>(Collections.emptyList()));
         List<ItemRequestDto> requestDtos = service.findAll(userId, from, size);
         assertNotNull(requestDtos);
         assertEquals(0, requestDtos.size());
@@ -133,18 +133,40 @@ class ItemRequestServiceTest {
         //Single List
         userId = owner.getId();
         long requestId = request.getId();
-        when(userRepo.findById(userId)).thenReturn(Optional.of(owner));
         when(itemRepo.findByRequestIdIn(List.of(requestId))).thenReturn(List.of(item));
-        when(repository.findByRequestorIdNot(userId, page)).thenReturn(new PageImpl<>(List.of(request)));
+        when(repository.findByRequestorIdNot(userId, page)).thenReturn(new SliceImpl<>(List.of(request)));
         requestDtos = service.findAll(userId, from, size);
         assertNotNull(requestDtos);
         assertEquals(1, requestDtos.size());
     }
 
+    @Test
+    void findAllAfter() {
+        long userId = owner.getId();
+        int size = 1;
+        when(itemRepo.findByRequestIdIn(List.of(request.getId()))).thenReturn(List.of(item));
+        when(repository.findByRequestorIdNot(userId, PageRequest.of(0, size, SORT)))
+                .thenReturn(new SliceImpl<>(List.of(request), PageRequest.of(0, size, SORT), true));
+
+        CursorPage<ItemRequestDto> page = service.findAllAfter(userId, "", size);
+        assertEquals(1, page.getContent().size());
+        assertEquals(1, page.getContent().get(0).getItems().size());
+        verify(repository, never()).findByRequestorIdNotAfter(anyLong(), any(), anyLong(), any());
+
+        service.findAllAfter(userId, page.getNextCursor(), size);
+        verify(repository).findByRequestorIdNotAfter(userId, request.getCreated(), request.getId(),
+                PageRequest.of(0, size + 1));
+
+        //Fail By Cursor Without Date
+        String keyless = Cursor.of(request.getId()).encode();
+        ValidationException exception = assertThrows(ValidationException.class,
+                () -> service.findAllAfter(userId, keyless, size));
+        assertEquals(String.format("Некорректный курсор %s", keyless), exception.getMessage());
+    }
+
     @Test
     void findById() {
         long userId = requestor.getId();
-        when(userRepo.findById(userId)).thenReturn(Optional.of(requestor));
         long requestId = request.getId();
         when(repository.findById(requestId)).thenReturn(Optional.of(request));
         when(itemRepo.findByRequestId(requestId)).thenReturn(List.of(item));
@@ -155,8 +177,8 @@ class ItemRequestServiceTest {
         assertEquals(1, requestDto.getItems().size());
         assertEquals(item.getId(), requestDto.getItems().get(0).getId());
 
-        InOrder inOrder = inOrder(userRepo, repository, itemRepo);
-        inOrder.verify(userRepo).findById(userId);
+        InOrder inOrder = inOrder(users, repository, itemRepo);
+        inOrder.verify(users).checkExists(userId);
         inOrder.verify(repository).findById(requestId);
         inOrder.verify(itemRepo).findByRequestId(requestId);
     }
@@ -6,10 +6,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import ru.practicum.shareit.error.exception.EmailExistException;
 import ru.practicum.shareit.error.exception.NotFoundException;
 import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.event.UserAddedEvent;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
@@ -25,6 +28,9 @@ class UserServiceTest {
     @Mock
     private UserRepository repository;
 
+    @Mock
+    private ApplicationEventPublisher publisher;
+
     @InjectMocks
     private UserServiceImpl service;
 
@@ -85,6 +91,7 @@ class UserServiceTest {
         assertNotNull(userSaved);
         assertEquals(user.getId(), userSaved.getId());
         verify(repository, times(1)).save(any());
+        verify(publisher, times(1)).publishEvent(new UserAddedEvent(user.getId()));
 
         //Fail By Existing Email
         String email = user.getEmail();
@@ -132,6 +139,21 @@ class UserServiceTest {
         assertNotNull(userDtoUpdated);
         assertEquals(userId, userDtoUpdated.getId());
         assertEquals(emailUpdated, userDtoUpdated.getEmail());
+
+        //Same Email Of The Same User
+        when(repository.findByEmail(emailUpdated)).thenReturn(Optional.of(userUpdated));
+        userDtoUpdated = service.patch(userId, UserDto.builder().email(emailUpdated).build());
+        assertEquals(emailUpdated, userDtoUpdated.getEmail());
+
+        //Fail By Email Of Other User
+        User other = new User();
+        other.setId(userId + 1);
+        other.setEmail("other@mail.ru");
+        when(repository.findByEmail(other.getEmail())).thenReturn(Optional.of(other));
+        EmailExistException emailException = assertThrows(
+                EmailExistException.class,
+                () -> service.patch(userId, UserDto.builder().email(other.getEmail()).build()));
+        assertEquals("Пользователь с email other@mail.ru уже существует", emailException.getMessage());
     }
 
     @Test
@@ -139,5 +161,6 @@ class UserServiceTest {
         long userId = 1L;
         service.delete(userId);
         verify(repository, times(1)).deleteById(userId);
+        verify(publisher, times(1)).publishEvent(new UserDeletedEvent(userId));
     }
 }
\ No newline at end of file
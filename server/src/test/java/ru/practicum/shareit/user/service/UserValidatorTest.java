@@ -0,0 +1,142 @@
+package ru.practicum.shareit.user.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.datasource.PrimaryReads;
+import ru.practicum.shareit.error.exception.NotFoundException;
+import ru.practicum.shareit.user.event.UserAddedEvent;
+import ru.practicum.shareit.user.event.UserDeletedEvent;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserValidatorTest {
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Mock
+    private UserRepository repository;
+
+    private UserValidator validator;
+
+    @BeforeEach
+    void setup() {
+        validator = new UserValidator(repository, new PrimaryReads(), registry, 3, Duration.ofSeconds(60), nanoTime::get);
+    }
+
+    @Test
+    void checkExists() {
+        //Loaded Once
+        when(repository.existsById(1L)).thenReturn(true);
+        validator.checkExists(1L);
+        validator.checkExists(1L);
+        verify(repository, times(1)).existsById(1L);
+        assertEquals(1, hits());
+
+        //Missing Is Remembered Too
+        NotFoundException exception = assertThrows(NotFoundException.class, () -> validator.checkExists(2L));
+        assertEquals("Пользователь с id 2 не найден", exception.getMessage());
+        assertThrows(NotFoundException.class, () -> validator.checkExists(2L));
+        verify(repository, times(1)).existsById(2L);
+
+        //Expired
+        nanoTime.addAndGet(Duration.ofSeconds(60).toNanos());
+        validator.checkExists(1L);
+        verify(repository, times(2)).existsById(1L);
+    }
+
+    @Test
+    void addedAndDeletedUsers() {
+        assertThrows(NotFoundException.class, () -> validator.checkExists(1L));
+
+        validator.onUserAdded(new UserAddedEvent(1L));
+        validator.checkExists(1L);
+
+        validator.onUserDeleted(new UserDeletedEvent(1L));
+        assertThrows(NotFoundException.class, () -> validator.checkExists(1L));
+        verify(repository, times(1)).existsById(1L);
+    }
+
+    @Test
+    void getReference() {
+        User user = new User();
+        user.setId(1L);
+        when(repository.existsById(1L)).thenReturn(true);
+        when(repository.getReferenceById(1L)).thenReturn(user);
+        assertSame(user, validator.getReference(1L));
+
+        assertThrows(NotFoundException.class, () -> validator.getReference(2L));
+        verify(repository, never()).getReferenceById(2L);
+    }
+
+    @Test
+    void bounded() {
+        for (long userId = 1; userId <= 3; userId++) {
+            validator.onUserAdded(new UserAddedEvent(userId));
+        }
+        //Least Recently Used Is Evicted
+        validator.checkExists(1L);
+        validator.onUserAdded(new UserAddedEvent(4L));
+        assertEquals(3.0, registry.get("cache.size").tag("cache", "users.existence").gauge().value());
+        assertEquals(1.0, evictions());
+        validator.checkExists(1L);
+        verify(repository, never()).existsById(1L);
+        assertThrows(NotFoundException.class, () -> validator.checkExists(2L));
+        verify(repository).existsById(2L);
+
+        //Expired Entries Go First
+        nanoTime.addAndGet(Duration.ofSeconds(60).toNanos());
+        when(repository.existsById(5L)).thenReturn(true);
+        validator.checkExists(5L);
+        assertEquals(1.0, registry.get("cache.size").tag("cache", "users.existence").gauge().value());
+        assertEquals(5.0, evictions());
+    }
+
+    private double evictions() {
+        return registry.get("cache.evictions").tag("cache", "users.existence").counter().count();
+    }
+
+    @Test
+    void loadFromPrimaryWhenReplicaLags() {
+        // Реплика ещё не получила пользователя, созданного на основной базе
+        PrimaryReads primaryReads = mock(PrimaryReads.class);
+        AtomicBoolean onPrimary = new AtomicBoolean();
+        when(primaryReads.read(any())).thenAnswer(invocation -> {
+            onPrimary.set(true);
+            try {
+                return invocation.<Supplier<?>>getArgument(0).get();
+            } finally {
+                onPrimary.set(false);
+            }
+        });
+        when(repository.existsById(1L)).thenAnswer(invocation -> onPrimary.get());
+        validator = new UserValidator(repository, primaryReads, registry, 3, Duration.ofSeconds(60), nanoTime::get);
+
+        validator.checkExists(1L);
+        validator.checkExists(1L);
+        verify(repository, times(1)).existsById(1L);
+    }
+
+    private double hits() {
+        return registry.get("cache.gets").tag("cache", "users.existence").tag("result", "hit").counter().count();
+    }
+}